@@ -0,0 +1,62 @@
+package benchmarks;
+
+import chess.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic midgame positions for the benchmarks, each reached by playing an
+ * opening line from the starting position through {@link ChessGame#makeMove}.
+ */
+public class Corpus {
+    // moves are written start square then end square, e.g. e2e4
+    private static final String LINES[] = {
+            // Italian game
+            "e2e4 e7e5 g1f3 b8c6 f1c4 f8c5 c2c3 g8f6 d2d3 d7d6 b1d2 a7a6 b2b4 c5a7 a2a4 c8e6",
+            // Queen's gambit declined
+            "d2d4 d7d5 c2c4 e7e6 b1c3 g8f6 c1g5 f8e7 e2e3 b8d7 g1f3 c7c6 f1d3 d5c4 d3c4 f6d5",
+            // Sicilian, English attack
+            "e2e4 c7c5 g1f3 d7d6 d2d4 c5d4 f3d4 g8f6 b1c3 a7a6 c1e3 e7e5 d4b3 c8e6 f2f3 f8e7 d1d2 b8d7 g2g4",
+            // King's Indian
+            "d2d4 g8f6 c2c4 g7g6 b1c3 f8g7 e2e4 d7d6 g1f3 b8d7 f1e2 e7e5 d4d5 a7a5 c1g5 h7h6 g5h4",
+            // Ruy Lopez exchange, queens traded
+            "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5c6 d7c6 d2d4 e5d4 d1d4 d8d4 f3d4 c8d7 c1e3 f8d6 b1c3 g8e7",
+            // French, Winawer
+            "e2e4 e7e6 d2d4 d7d5 b1c3 f8b4 e4e5 c7c5 a2a3 b4c3 b2c3 g8e7 d1g4 d8c7 g4g7 h8g8 g7h7 c5d4",
+    };
+
+    private Corpus() {
+    }
+
+    /**
+     * @return a new game for every position in the corpus
+     */
+    public static List<ChessGame> games() {
+        List<ChessGame> games = new ArrayList<>();
+        for (String line : LINES) {
+            games.add(play(line));
+        }
+        return games;
+    }
+
+    public static ChessGame play(String line) {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        for (String move : line.split(" ")) {
+            try {
+                game.makeMove(parse(move));
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException("Illegal move " + move + " in corpus line " + line, e);
+            }
+        }
+        return game;
+    }
+
+    public static ChessMove parse(String move) {
+        return new ChessMove(new ChessPosition(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                new ChessPosition(move.charAt(3) - '0', move.charAt(2) - 'a' + 1), null);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the {@link ChessGame} rules queries over the whole corpus. Each
+ * benchmark call covers every corpus position once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+    private List<ChessGame> games;
+    // squares of the pieces belonging to the side to move, per game
+    private final List<List<ChessPosition>> movers = new ArrayList<>();
+    // a legal move for the side to move, per game
+    private final List<ChessMove> replies = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        games = Corpus.games();
+        for (ChessGame game : games) {
+            List<ChessPosition> squares = new ArrayList<>();
+            ChessMove reply = null;
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPosition pos = new ChessPosition(row, col);
+                    ChessPiece piece = game.getBoard().getPiece(pos);
+                    if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                        squares.add(pos);
+                        if (reply == null && !game.validMoves(pos).isEmpty()) {
+                            reply = game.validMoves(pos).iterator().next();
+                        }
+                    }
+                }
+            }
+            movers.add(squares);
+            replies.add(reply);
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole bh) {
+        for (int i = 0; i < games.size(); i++) {
+            for (ChessPosition pos : movers.get(i)) {
+                bh.consume(games.get(i).validMoves(pos));
+            }
+        }
+    }
+
+    @Benchmark
+    public void isInCheck(Blackhole bh) {
+        for (ChessGame game : games) {
+            bh.consume(game.isInCheck(ChessGame.TeamColor.WHITE));
+            bh.consume(game.isInCheck(ChessGame.TeamColor.BLACK));
+        }
+    }
+
+    @Benchmark
+    public void isInCheckmate(Blackhole bh) {
+        for (ChessGame game : games) {
+            bh.consume(game.isInCheckmate(game.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public void isInStalemate(Blackhole bh) {
+        for (ChessGame game : games) {
+            bh.consume(game.isInStalemate(game.getTeamTurn()));
+        }
+    }
+
+    @Benchmark
+    public void boardHashCode(Blackhole bh) {
+        for (ChessGame game : games) {
+            bh.consume(game.getBoard().hashCode());
+        }
+    }
+
+    /**
+     * Plays one legal move in each position and takes it back again
+     */
+    @Benchmark
+    public void makeMove(Blackhole bh) throws InvalidMoveException {
+        for (int i = 0; i < games.size(); i++) {
+            ChessGame game = games.get(i);
+            game.makeMove(replies.get(i));
+            bh.consume(game.getZobristKey());
+            game.unmakeMove();
+        }
+    }
+}
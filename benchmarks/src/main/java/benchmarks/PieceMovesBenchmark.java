@@ -0,0 +1,51 @@
+package benchmarks;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times {@link ChessPiece#pieceMoves} for every piece of one type across the
+ * corpus positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+    @Param({"KING", "QUEEN", "BISHOP", "KNIGHT", "ROOK", "PAWN"})
+    public ChessPiece.PieceType type;
+
+    private final List<ChessBoard> boards = new ArrayList<>();
+    private final List<ChessPosition> positions = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (ChessGame game : Corpus.games()) {
+            ChessBoard board = game.getBoard();
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                    if (piece != null && piece.getPieceType() == type) {
+                        boards.add(board);
+                        positions.add(new ChessPosition(row, col));
+                    }
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole bh) {
+        for (int i = 0; i < boards.size(); i++) {
+            ChessBoard board = boards.get(i);
+            bh.consume(board.getPiece(positions.get(i)).pieceMoves(board, positions.get(i)));
+        }
+    }
+}
@@ -1,8 +1,16 @@
 import chess.*;
+import dataAccess.ConnectionPool;
+import dataAccess.DatabaseManager;
+import server.Server;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
         var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        System.out.println("♕ 240 Chess Server: " + piece);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Server server = DatabaseManager.isConfigured()
+                ? new Server(DatabaseManager.openPool(ConnectionPool.Settings.defaults()))
+                : new Server();
+        port = server.run(port);
+        System.out.println("♕ 240 Chess Server: " + piece + " on port " + port);
     }
-}
\ No newline at end of file
+}
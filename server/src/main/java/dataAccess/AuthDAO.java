@@ -0,0 +1,19 @@
+package dataAccess;
+
+import model.AuthData;
+
+public interface AuthDAO {
+    void createAuth(AuthData auth) throws DataAccessException;
+
+    /**
+     * @return the session, or null if the token is unknown
+     */
+    AuthData getAuth(String authToken) throws DataAccessException;
+
+    /**
+     * @return false if the token was unknown
+     */
+    boolean deleteAuth(String authToken) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,634 @@
+package dataAccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of JDBC connections, handed out through the plain
+ * {@link DataSource} interface so DAOs do not know they are pooled.
+ * <p>
+ * Closing a connection from {@link #getConnection()} puts it back in the
+ * pool, closing any statements still open on it. A connection that sat
+ * idle for a while is checked with {@link Connection#isValid} before it is
+ * handed out, and one that threw a connection-level error is thrown away
+ * instead of being reused. A background thread tops the pool back up to its
+ * minimum, closes extra connections that have been idle too long, and, if a
+ * leak threshold is set, logs any connection held past it along with where
+ * it was taken.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Upper bounds of the acquisition latency buckets in microseconds; the
+     * last bucket has no upper bound
+     */
+    public static final long LATENCY_BUCKETS_MICROS[] = {
+            10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000, Long.MAX_VALUE};
+
+    /**
+     * Pool sizing and timing
+     *
+     * @param minIdle            connections kept open even when nothing is
+     *                           using them
+     * @param maxSize            most connections open at once
+     * @param acquireTimeoutMs   longest {@link #getConnection()} waits for a
+     *                           free connection
+     * @param validateAfterMs    idle time after which a connection is checked
+     *                           before it is handed out
+     * @param idleTimeoutMs      idle time after which connections beyond
+     *                           minIdle are closed
+     * @param leakThresholdMs    time a connection may be held before it is
+     *                           logged as a possible leak, 0 to never check.
+     *                           Checking records a stack trace on every
+     *                           checkout, so it is off by default.
+     * @param housekeepingMs     how often the background thread runs
+     */
+    public record Settings(int minIdle, int maxSize, long acquireTimeoutMs, long validateAfterMs, long idleTimeoutMs,
+                           long leakThresholdMs, long housekeepingMs) {
+        public Settings {
+            if (minIdle < 0 || maxSize < 1 || minIdle > maxSize) {
+                throw new IllegalArgumentException("Need 0 <= minIdle <= maxSize and maxSize >= 1");
+            }
+        }
+
+        public static Settings defaults() {
+            return new Settings(2, 10, 5_000, 500, 600_000, 0, 1_000);
+        }
+    }
+
+    /**
+     * Counters for the pool
+     *
+     * @param open               connections open, idle or in use
+     * @param idle               connections waiting in the pool
+     * @param inUse              connections handed out
+     * @param waiting            callers waiting for a connection
+     * @param created            connections ever opened
+     * @param destroyed          connections ever closed
+     * @param validationFailures idle connections found dead when checked
+     * @param timeouts           callers that gave up waiting
+     * @param leaks              connections held past the leak threshold
+     * @param acquireLatency     number of acquisitions in each of the
+     *                           {@link #LATENCY_BUCKETS_MICROS} buckets
+     */
+    public record Stats(int open, int idle, int inUse, int waiting, long created, long destroyed,
+                        long validationFailures, long timeouts, long leaks, long[] acquireLatency) {
+        /**
+         * @param fraction between 0 and 1, such as 0.99
+         * @return upper bound in microseconds of the bucket holding that share
+         * of acquisitions, or 0 if there have been none
+         */
+        public long latencyPercentileMicros(double fraction) {
+            long total = 0;
+            for (long count : acquireLatency) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long needed = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < acquireLatency.length; i++) {
+                seen += acquireLatency[i];
+                if (seen >= needed) {
+                    return LATENCY_BUCKETS_MICROS[i];
+                }
+            }
+            return LATENCY_BUCKETS_MICROS[LATENCY_BUCKETS_MICROS.length - 1];
+        }
+    }
+
+    /**
+     * One physical connection and its bookkeeping
+     */
+    private static final class Entry {
+        final Connection physical;
+        long idle_since;
+        long taken_at;
+        Throwable taken_by;
+        boolean leak_reported;
+        // set by the thread using the connection, read when it comes back
+        volatile boolean broken;
+
+        Entry(Connection physical) {
+            this.physical = physical;
+            this.idle_since = System.nanoTime();
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final Settings settings;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    // most recently returned last, so the warmest connection goes out first
+    private final ArrayDeque<Entry> idle = new ArrayDeque<>();
+    private final List<Entry> in_use = new ArrayList<>();
+    // connections being opened, counted so the pool never exceeds maxSize
+    private int opening;
+    private int waiting;
+    private boolean closed;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder validation_failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LongAdder latency[] = new LongAdder[LATENCY_BUCKETS_MICROS.length];
+
+    private final Thread housekeeper;
+
+    /**
+     * Opens the minimum number of connections and starts the housekeeping
+     * thread
+     *
+     * @throws DataAccessException if the first connections cannot be opened
+     */
+    public ConnectionPool(String url, String user, String password, Settings settings) throws DataAccessException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.settings = settings;
+        for (int i = 0; i < latency.length; i++) {
+            latency[i] = new LongAdder();
+        }
+        try {
+            for (int i = 0; i < settings.minIdle(); i++) {
+                idle.addLast(new Entry(open()));
+            }
+        } catch (SQLException e) {
+            closeAll(idle);
+            throw new DataAccessException("Could not open database connections: " + e.getMessage());
+        }
+        housekeeper = new Thread(this::housekeep, "connection-pool-housekeeper");
+        housekeeper.setDaemon(true);
+        housekeeper.start();
+    }
+
+    /**
+     * Hands out a pooled connection; close it to give it back
+     *
+     * @throws SQLTimeoutException if no connection frees up within the
+     *                             acquire timeout
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.acquireTimeoutMs());
+        while (true) {
+            Entry entry = null;
+            boolean open_new = false;
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && in_use.size() + opening >= settings.maxSize()) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        timeouts.increment();
+                        throw new SQLTimeoutException("No database connection free after "
+                                + settings.acquireTimeoutMs() + " ms (" + settings.maxSize() + " in use)");
+                    }
+                    waiting++;
+                    try {
+                        returned.awaitNanos(left);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiting--;
+                    }
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    entry = idle.pollLast();
+                    checkOut(entry);
+                } else {
+                    opening++;
+                    open_new = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (open_new) {
+                try {
+                    entry = new Entry(open());
+                } finally {
+                    lock.lock();
+                    try {
+                        opening--;
+                        if (entry != null) {
+                            checkOut(entry);
+                        } else {
+                            returned.signal();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            } else if (System.nanoTime() - entry.idle_since > TimeUnit.MILLISECONDS.toNanos(settings.validateAfterMs())
+                    && !isAlive(entry.physical)) {
+                validation_failures.increment();
+                discard(entry);
+                continue;
+            }
+            recordLatency(System.nanoTime() - start);
+            return wrap(entry);
+        }
+    }
+
+    // call with the lock held
+    private void checkOut(Entry entry) {
+        entry.taken_at = System.nanoTime();
+        entry.taken_by = settings.leakThresholdMs() > 0 ? new Throwable("Connection taken here") : null;
+        entry.leak_reported = false;
+        entry.broken = false;
+        in_use.add(entry);
+    }
+
+    private void recordLatency(long nanos) {
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (micros > LATENCY_BUCKETS_MICROS[bucket]) {
+            bucket++;
+        }
+        latency[bucket].increment();
+    }
+
+    private static boolean isAlive(Connection connection) {
+        try {
+            return connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        created.increment();
+        return connection;
+    }
+
+    /**
+     * A connection that returns itself to the pool when closed and marks
+     * itself broken when the driver reports a connection-level error
+     */
+    private Connection wrap(Entry entry) {
+        return new Lease(entry).connection;
+    }
+
+    /**
+     * One checkout of a connection. Statements, result sets and metadata
+     * handed out through it are wrapped too, so their getConnection and
+     * getStatement lead back to the wrappers rather than to the physical
+     * connection, and statements left open are closed when the connection
+     * goes back to the pool.
+     */
+    private final class Lease {
+        final Entry entry;
+        final Connection connection;
+        final AtomicBoolean released = new AtomicBoolean();
+        // physical statements not closed yet
+        final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+        Lease(Entry entry) {
+            this.entry = entry;
+            this.connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this::invokeConnection);
+        }
+
+        private Object invokeConnection(Object proxy, Method method, Object args[]) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (released.compareAndSet(false, true)) {
+                        closeStatements();
+                        release(entry);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return released.get() || entry.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + entry.physical;
+                }
+            }
+            if (released.get()) {
+                throw new SQLException("Connection was already returned to the pool");
+            }
+            return wrapResult(call(entry.physical, method, args), null);
+        }
+
+        private Object call(Object target, Method method, Object args[]) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // SQL state class 08 is a connection exception
+                if (cause instanceof SQLException sql && sql.getSQLState() != null
+                        && sql.getSQLState().startsWith("08")) {
+                    entry.broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        /**
+         * @param statement the wrapped statement a result set came from, if
+         *                  known
+         */
+        private Object wrapResult(Object result, Object statement) {
+            if (result instanceof Statement raw) {
+                statements.add(raw);
+                return child(raw, null);
+            }
+            if (result instanceof ResultSet || result instanceof DatabaseMetaData) {
+                return child(result, statement);
+            }
+            return result;
+        }
+
+        private Object child(Object target, Object statement) {
+            Class<?> api = target instanceof CallableStatement ? CallableStatement.class
+                    : target instanceof PreparedStatement ? PreparedStatement.class
+                    : target instanceof Statement ? Statement.class
+                    : target instanceof ResultSet ? ResultSet.class : DatabaseMetaData.class;
+            Object holder[] = {statement};
+            return Proxy.newProxyInstance(api.getClassLoader(), new Class<?>[]{api}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getConnection" -> {
+                        return connection;
+                    }
+                    case "getStatement" -> {
+                        if (holder[0] == null) {
+                            Object raw = call(target, method, args);
+                            holder[0] = raw == null ? null : wrapResult(raw, null);
+                        }
+                        return holder[0];
+                    }
+                    case "close" -> {
+                        if (target instanceof Statement raw) {
+                            statements.remove(raw);
+                        }
+                    }
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    case "toString" -> {
+                        return target.toString();
+                    }
+                }
+                return wrapResult(call(target, method, args), target instanceof Statement ? proxy : null);
+            });
+        }
+
+        private void closeStatements() {
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    log.debug("Error closing a statement left open", e);
+                }
+            }
+            statements.clear();
+        }
+    }
+
+    private void release(Entry entry) {
+        boolean reusable = !entry.broken;
+        if (reusable) {
+            try {
+                if (!entry.physical.getAutoCommit()) {
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                reusable = false;
+            }
+        }
+        lock.lock();
+        try {
+            in_use.remove(entry);
+            if (reusable && !closed) {
+                entry.idle_since = System.nanoTime();
+                entry.taken_by = null;
+                idle.addLast(entry);
+                returned.signal();
+                return;
+            }
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+        close(entry.physical);
+    }
+
+    private void discard(Entry entry) {
+        lock.lock();
+        try {
+            in_use.remove(entry);
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+        close(entry.physical);
+    }
+
+    private void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Error closing database connection", e);
+        }
+        destroyed.increment();
+    }
+
+    private void closeAll(Iterable<Entry> entries) {
+        for (Entry entry : entries) {
+            close(entry.physical);
+        }
+    }
+
+    private void housekeep() {
+        while (true) {
+            try {
+                Thread.sleep(settings.housekeepingMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+            List<Entry> expired = new ArrayList<>();
+            int missing;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                long now = System.nanoTime();
+                long idle_limit = TimeUnit.MILLISECONDS.toNanos(settings.idleTimeoutMs());
+                // oldest first, never below the minimum
+                Iterator<Entry> oldest = idle.iterator();
+                while (idle.size() > settings.minIdle() && oldest.hasNext()) {
+                    Entry entry = oldest.next();
+                    if (now - entry.idle_since > idle_limit) {
+                        oldest.remove();
+                        expired.add(entry);
+                    }
+                }
+                if (settings.leakThresholdMs() > 0) {
+                    long leak_limit = TimeUnit.MILLISECONDS.toNanos(settings.leakThresholdMs());
+                    for (Entry entry : in_use) {
+                        if (!entry.leak_reported && now - entry.taken_at > leak_limit) {
+                            entry.leak_reported = true;
+                            leaks.increment();
+                            log.warn("Database connection held for more than {} ms, possible leak",
+                                    settings.leakThresholdMs(), entry.taken_by);
+                        }
+                    }
+                }
+                missing = Math.min(settings.minIdle() - idle.size(),
+                        settings.maxSize() - idle.size() - in_use.size() - opening);
+                opening += Math.max(missing, 0);
+            } finally {
+                lock.unlock();
+            }
+            closeAll(expired);
+            for (int i = 0; i < missing; i++) {
+                Entry entry = null;
+                try {
+                    entry = new Entry(open());
+                } catch (SQLException e) {
+                    log.warn("Could not open a database connection: {}", e.getMessage());
+                }
+                lock.lock();
+                try {
+                    opening--;
+                    if (entry != null && !closed) {
+                        idle.addLast(entry);
+                        returned.signal();
+                        entry = null;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (entry != null) {
+                    close(entry.physical);
+                }
+            }
+        }
+    }
+
+    public Stats getStats() {
+        long counts[] = new long[latency.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latency[i].sum();
+        }
+        lock.lock();
+        try {
+            return new Stats(idle.size() + in_use.size(), idle.size(), in_use.size(), waiting, created.sum(),
+                    destroyed.sum(), validation_failures.sum(), timeouts.sum(), leaks.sum(), counts);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes idle connections now and the rest as they are returned, and
+     * wakes anyone waiting with an error
+     */
+    @Override
+    public void close() {
+        List<Entry> to_close;
+        lock.lock();
+        try {
+            closed = true;
+            to_close = new ArrayList<>(idle);
+            idle.clear();
+            returned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.interrupt();
+        closeAll(to_close);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("A pool's connections all use the user it was made with");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,56 @@
+package dataAccess;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+/**
+ * Reads the database settings from db.properties on the classpath and opens
+ * a {@link ConnectionPool} onto the chess database, creating the database
+ * first if needed.
+ */
+public class DatabaseManager {
+    private static final String PROPERTIES = "db.properties";
+
+    /**
+     * @return whether db.properties is on the classpath
+     */
+    public static boolean isConfigured() {
+        return DatabaseManager.class.getClassLoader().getResource(PROPERTIES) != null;
+    }
+
+    /**
+     * Creates the database if it does not exist and opens a pool onto it
+     *
+     * @throws DataAccessException if the settings cannot be read or the
+     *                             server cannot be reached
+     */
+    public static ConnectionPool openPool(ConnectionPool.Settings settings) throws DataAccessException {
+        Properties props = new Properties();
+        try (InputStream in = DatabaseManager.class.getClassLoader().getResourceAsStream(PROPERTIES)) {
+            if (in == null) {
+                throw new DataAccessException("Could not find " + PROPERTIES);
+            }
+            props.load(in);
+        } catch (IOException e) {
+            throw new DataAccessException("Could not read " + PROPERTIES + ": " + e.getMessage());
+        }
+        String name = props.getProperty("db.name");
+        String user = props.getProperty("db.user");
+        String password = props.getProperty("db.password");
+        String server_url = "jdbc:mysql://" + props.getProperty("db.host") + ":" + props.getProperty("db.port");
+
+        try (Connection conn = DriverManager.getConnection(server_url, user, password);
+             Statement statement = conn.createStatement()) {
+            statement.executeUpdate("CREATE DATABASE IF NOT EXISTS " + name);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create database " + name + ": " + e.getMessage());
+        }
+        // batched inserts from the move writer go over the wire as one statement
+        return new ConnectionPool(server_url + "/" + name + "?rewriteBatchedStatements=true", user, password, settings);
+    }
+}
@@ -0,0 +1,31 @@
+package dataAccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.Collection;
+
+public interface GameDAO {
+    /**
+     * @return the new game's ID
+     */
+    int createGame(String gameName) throws DataAccessException;
+
+    /**
+     * @return the game, or null if there is none with that ID
+     */
+    GameData getGame(int gameID) throws DataAccessException;
+
+    Collection<GameData> listGames() throws DataAccessException;
+
+    /**
+     * Seats a user as one color, but only if nobody holds that seat yet. The
+     * check and the update happen as one step, so two users racing for the
+     * same seat cannot both get it.
+     *
+     * @return false if the seat was already taken or the game does not exist
+     */
+    boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,29 @@
+package dataAccess;
+
+import model.AuthData;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemoryAuthDAO implements AuthDAO {
+    private final ConcurrentHashMap<String, AuthData> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void createAuth(AuthData auth) {
+        sessions.put(auth.authToken(), auth);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) {
+        return sessions.get(authToken);
+    }
+
+    @Override
+    public boolean deleteAuth(String authToken) {
+        return sessions.remove(authToken) != null;
+    }
+
+    @Override
+    public void clear() {
+        sessions.clear();
+    }
+}
@@ -0,0 +1,53 @@
+package dataAccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryGameDAO implements GameDAO {
+    private final ConcurrentHashMap<Integer, GameData> games = new ConcurrentHashMap<>();
+    private final AtomicInteger next_id = new AtomicInteger(1);
+
+    @Override
+    public int createGame(String gameName) {
+        int gameID = next_id.getAndIncrement();
+        games.put(gameID, new GameData(gameID, null, null, gameName));
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        return games.get(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) {
+        boolean claimed[] = {false};
+        games.computeIfPresent(gameID, (id, game) -> {
+            if (color == ChessGame.TeamColor.WHITE && game.whiteUsername() == null) {
+                claimed[0] = true;
+                return new GameData(id, username, game.blackUsername(), game.gameName());
+            }
+            if (color == ChessGame.TeamColor.BLACK && game.blackUsername() == null) {
+                claimed[0] = true;
+                return new GameData(id, game.whiteUsername(), username, game.gameName());
+            }
+            return game;
+        });
+        return claimed[0];
+    }
+
+    @Override
+    public void clear() {
+        games.clear();
+    }
+}
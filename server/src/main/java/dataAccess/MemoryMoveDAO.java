@@ -0,0 +1,55 @@
+package dataAccess;
+
+import chess.PackedMove;
+import model.GameSnapshot;
+import model.LoggedMove;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemoryMoveDAO implements MoveDAO {
+    private final ConcurrentHashMap<Integer, TreeMap<Integer, Integer>> moves = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, GameSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    @Override
+    public void appendMove(int gameID, int ply, int move) {
+        TreeMap<Integer, Integer> game = moves.computeIfAbsent(gameID, id -> new TreeMap<>());
+        synchronized (game) {
+            game.put(ply, move & PackedMove.MOVE_MASK);
+        }
+    }
+
+    @Override
+    public List<LoggedMove> getMoves(int gameID, int fromPly) {
+        TreeMap<Integer, Integer> game = moves.get(gameID);
+        List<LoggedMove> out = new ArrayList<>();
+        if (game == null) {
+            return out;
+        }
+        synchronized (game) {
+            for (Map.Entry<Integer, Integer> entry : game.tailMap(fromPly).entrySet()) {
+                out.add(new LoggedMove(entry.getKey(), entry.getValue()));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void saveSnapshot(GameSnapshot snapshot) {
+        snapshots.merge(snapshot.gameID(), snapshot, (old, now) -> now.ply() >= old.ply() ? now : old);
+    }
+
+    @Override
+    public GameSnapshot getLatestSnapshot(int gameID) {
+        return snapshots.get(gameID);
+    }
+
+    @Override
+    public void clear() {
+        moves.clear();
+        snapshots.clear();
+    }
+}
@@ -0,0 +1,24 @@
+package dataAccess;
+
+import model.UserData;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemoryUserDAO implements UserDAO {
+    private final ConcurrentHashMap<String, UserData> users = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean createUser(UserData user) {
+        return users.putIfAbsent(user.username(), user) == null;
+    }
+
+    @Override
+    public UserData getUser(String username) {
+        return users.get(username);
+    }
+
+    @Override
+    public void clear() {
+        users.clear();
+    }
+}
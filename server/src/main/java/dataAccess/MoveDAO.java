@@ -0,0 +1,44 @@
+package dataAccess;
+
+import model.GameSnapshot;
+import model.LoggedMove;
+
+import java.util.List;
+
+/**
+ * The moves played in each game, one compact record per move, plus a
+ * snapshot of the position every so often. A game is stored as its newest
+ * snapshot and the moves after it, never as a whole serialized game.
+ */
+public interface MoveDAO {
+    /**
+     * Records a move
+     *
+     * @param ply  half-moves played in the game before this one
+     * @param move the move as {@link chess.PackedMove#fromChessMove}, only
+     *             the {@link chess.PackedMove#MOVE_MASK} bits are kept
+     */
+    void appendMove(int gameID, int ply, int move) throws DataAccessException;
+
+    /**
+     * @return the game's moves from the given ply on, in ply order, each with
+     * its ply so callers can tell if one is missing
+     */
+    List<LoggedMove> getMoves(int gameID, int fromPly) throws DataAccessException;
+
+    /**
+     * @return all of the game's moves in ply order
+     */
+    default List<LoggedMove> getMoves(int gameID) throws DataAccessException {
+        return getMoves(gameID, 0);
+    }
+
+    void saveSnapshot(GameSnapshot snapshot) throws DataAccessException;
+
+    /**
+     * @return the game's snapshot with the highest ply, or null if it has none
+     */
+    GameSnapshot getLatestSnapshot(int gameID) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
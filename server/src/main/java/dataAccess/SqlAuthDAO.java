@@ -0,0 +1,76 @@
+package dataAccess;
+
+import model.AuthData;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+public class SqlAuthDAO implements AuthDAO {
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS auth_token (
+                token CHAR(36) NOT NULL,
+                username VARCHAR(255) NOT NULL,
+                PRIMARY KEY (token)
+            )""";
+
+    private final DataSource data_source;
+
+    public SqlAuthDAO(DataSource dataSource) throws DataAccessException {
+        this.data_source = dataSource;
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create the auth table: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(
+                     "INSERT INTO auth_token (token, username) VALUES (?, ?)")) {
+            statement.setString(1, auth.authToken());
+            statement.setString(2, auth.username());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create session: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement("SELECT username FROM auth_token WHERE token = ?")) {
+            statement.setString(1, authToken);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new AuthData(authToken, rs.getString(1)) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not read session: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean deleteAuth(String authToken) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement("DELETE FROM auth_token WHERE token = ?")) {
+            statement.setString(1, authToken);
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not delete session: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = data_source.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate("DELETE FROM auth_token");
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not clear sessions: " + e.getMessage());
+        }
+    }
+}
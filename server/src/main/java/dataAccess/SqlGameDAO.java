@@ -0,0 +1,114 @@
+package dataAccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Game names and seats. The moves and positions are kept by
+ * {@link MoveDAO}.
+ */
+public class SqlGameDAO implements GameDAO {
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS game (
+                game_id INT NOT NULL AUTO_INCREMENT,
+                game_name VARCHAR(255) NOT NULL,
+                white_username VARCHAR(255),
+                black_username VARCHAR(255),
+                PRIMARY KEY (game_id)
+            )""";
+    private static final String SELECT = "SELECT game_id, white_username, black_username, game_name FROM game";
+
+    private final DataSource data_source;
+
+    public SqlGameDAO(DataSource dataSource) throws DataAccessException {
+        this.data_source = dataSource;
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create the game table: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int createGame(String gameName) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement("INSERT INTO game (game_name) VALUES (?)",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, gameName);
+            statement.executeUpdate();
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new DataAccessException("Database did not return the new game's ID");
+                }
+                return keys.getInt(1);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create game: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(SELECT + " WHERE game_id = ?")) {
+            statement.setInt(1, gameID);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? readGame(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not read game: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames() throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(SELECT + " ORDER BY game_id");
+             ResultSet rs = statement.executeQuery()) {
+            List<GameData> games = new ArrayList<>();
+            while (rs.next()) {
+                games.add(readGame(rs));
+            }
+            return games;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not list games: " + e.getMessage());
+        }
+    }
+
+    private static GameData readGame(ResultSet rs) throws SQLException {
+        return new GameData(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        String column = color == ChessGame.TeamColor.WHITE ? "white_username" : "black_username";
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(
+                     "UPDATE game SET " + column + " = ? WHERE game_id = ? AND " + column + " IS NULL")) {
+            statement.setString(1, username);
+            statement.setInt(2, gameID);
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not join game: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = data_source.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate("DELETE FROM game");
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not clear games: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dataAccess;
+
+import model.UserData;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+
+public class SqlUserDAO implements UserDAO {
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS users (
+                username VARCHAR(255) NOT NULL,
+                password VARCHAR(255) NOT NULL,
+                email VARCHAR(255) NOT NULL,
+                PRIMARY KEY (username)
+            )""";
+
+    private final DataSource data_source;
+
+    public SqlUserDAO(DataSource dataSource) throws DataAccessException {
+        this.data_source = dataSource;
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create the user table: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean createUser(UserData user) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(
+                     "INSERT INTO users (username, password, email) VALUES (?, ?, ?)")) {
+            statement.setString(1, user.username());
+            statement.setString(2, user.password());
+            statement.setString(3, user.email());
+            statement.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create user: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(
+                     "SELECT password, email FROM users WHERE username = ?")) {
+            statement.setString(1, username);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new UserData(username, rs.getString(1), rs.getString(2)) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not read user: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = data_source.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate("DELETE FROM users");
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not clear users: " + e.getMessage());
+        }
+    }
+}
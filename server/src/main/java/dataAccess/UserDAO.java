@@ -0,0 +1,17 @@
+package dataAccess;
+
+import model.UserData;
+
+public interface UserDAO {
+    /**
+     * @return false if a user with that name already exists
+     */
+    boolean createUser(UserData user) throws DataAccessException;
+
+    /**
+     * @return the user, or null if there is none with that name
+     */
+    UserData getUser(String username) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
@@ -0,0 +1,591 @@
+package dataAccess;
+
+import chess.PackedMove;
+import model.GameSnapshot;
+import model.LoggedMove;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saves moves to the database through a bounded in-memory queue.
+ * <p>
+ * {@link #appendMove} only puts a record on the queue; a background thread
+ * takes up to a batch of records at a time and inserts them with one JDBC
+ * batch in one transaction. A batch is written as soon as it is full, or
+ * once the flush interval has passed with anything queued. When the queue
+ * is full, appending waits for the writer to catch up, and the wait shows
+ * up in {@link #getStats()}.
+ * <p>
+ * Writing a move that is already stored does nothing, so a batch can safely
+ * be written again. A batch that fails with a transient error (a lost
+ * connection, a timeout, a deadlock) is tried again until it goes through.
+ * Any other failure is put down to a bad record: the batch is written one
+ * move at a time and the moves that still fail are logged and dropped, so
+ * one bad move cannot hold up every game behind it. A game that lost a move
+ * is marked broken, and its later moves are refused rather than saved after
+ * a hole in its log.
+ * <p>
+ * Snapshots are rare and written straight away, outside the queue.
+ * <p>
+ * With MySQL, add {@code rewriteBatchedStatements=true} to the JDBC URL so
+ * each batch goes over as a single multi-row insert.
+ */
+public class WriteBehindMoveDAO implements MoveDAO, AutoCloseable {
+    /**
+     * How long {@link #appendMove} waits before returning
+     */
+    public enum Durability {
+        /**
+         * Returns as soon as the move is queued. Moves still queued are lost
+         * if the process dies.
+         */
+        WRITE_BEHIND,
+        /**
+         * Waits until the batch holding the move is committed. Moves made at
+         * about the same time share one commit.
+         */
+        GROUP_COMMIT,
+        /**
+         * Starts a write right away and waits for it to commit
+         */
+        WRITE_THROUGH
+    }
+
+    /**
+     * Counters for the queue and writer
+     *
+     * @param queued         moves waiting to be written
+     * @param capacity       most moves the queue holds
+     * @param appended       moves ever queued
+     * @param committed      moves ever written
+     * @param batches        transactions committed
+     * @param largestBatch   most moves written in one transaction
+     * @param blockedAppends appends that had to wait for room in the queue
+     * @param blockedNanos   total time appends spent waiting for room
+     * @param failedFlushes  batches that failed and were tried again
+     * @param dropped        moves given up on after a non-transient error
+     */
+    public record Stats(int queued, int capacity, long appended, long committed, long batches, int largestBatch,
+                        long blockedAppends, long blockedNanos, long failedFlushes, long dropped) {
+    }
+
+    /**
+     * Highest ply a queued record has room for
+     */
+    public static final int MAX_PLY = (1 << 17) - 1;
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindMoveDAO.class);
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS game_move (
+                game_id INT NOT NULL,
+                ply INT NOT NULL,
+                move SMALLINT NOT NULL,
+                PRIMARY KEY (game_id, ply)
+            )""";
+    private static final String CREATE_SNAPSHOT_TABLE = """
+            CREATE TABLE IF NOT EXISTS game_snapshot (
+                game_id INT NOT NULL,
+                ply INT NOT NULL,
+                position VARBINARY(32) NOT NULL,
+                PRIMARY KEY (game_id, ply)
+            )""";
+    // keeps the stored move if the ply is already there, so writes can be repeated
+    private static final String INSERT =
+            "INSERT INTO game_move (game_id, ply, move) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE move = move";
+    private static final String SELECT = "SELECT ply, move FROM game_move WHERE game_id = ? AND ply >= ? ORDER BY ply";
+    private static final String INSERT_SNAPSHOT = "INSERT INTO game_snapshot (game_id, ply, position) VALUES (?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE position = position";
+    private static final String SELECT_SNAPSHOT =
+            "SELECT ply, position FROM game_snapshot WHERE game_id = ? ORDER BY ply DESC LIMIT 1";
+
+    private final DataSource data_source;
+    private final Durability durability;
+    private final int batch_size;
+    private final long flush_interval_nanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition has_work = lock.newCondition();
+    private final Condition not_full = lock.newCondition();
+    private final Condition committed_more = lock.newCondition();
+
+    // queued records, game ID in bits 32-63, ply in bits 15-31, move in bits 0-14
+    private final long records[];
+    // records are numbered in the order they were queued; those before head
+    // are committed, those from head up to tail are still queued
+    private long head;
+    private long tail;
+    // for each queue slot, the number of the last record dropped from it
+    private final long dropped_numbers[];
+    // number of the last record someone is waiting to see committed now
+    private long wanted;
+    private boolean closed;
+    // set once the writer thread has ended, for whatever reason
+    private boolean writer_stopped;
+    private SQLException last_error;
+    private String last_drop;
+    // set by writeEach, then copied to last_drop under the lock
+    private String drop_reason;
+    // games that lost a move; nothing after it is saved, so the log never has a hole
+    private final Set<Integer> broken_games = ConcurrentHashMap.newKeySet();
+
+    private long batches;
+    private int largest_batch;
+    private long blocked_appends;
+    private long blocked_nanos;
+    private long failed_flushes;
+    private long dropped;
+
+    private final Thread writer;
+
+    /**
+     * Creates the move and snapshot tables if needed and starts the writer
+     * thread
+     *
+     * @param capacity        most moves the queue holds before appends wait
+     * @param batchSize       most moves written in one transaction
+     * @param flushIntervalMs longest a queued move waits before a write
+     *                        starts
+     */
+    public WriteBehindMoveDAO(DataSource dataSource, Durability durability, int capacity, int batchSize,
+                              long flushIntervalMs) throws DataAccessException {
+        if (capacity < 1 || batchSize < 1 || flushIntervalMs < 1) {
+            throw new IllegalArgumentException("capacity, batchSize and flushIntervalMs must be positive");
+        }
+        this.data_source = dataSource;
+        this.durability = durability;
+        this.records = new long[capacity];
+        this.dropped_numbers = new long[capacity];
+        this.batch_size = Math.min(batchSize, capacity);
+        this.flush_interval_nanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        try (Connection conn = dataSource.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate(CREATE_TABLE);
+            statement.executeUpdate(CREATE_SNAPSHOT_TABLE);
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not create the move tables: " + e.getMessage());
+        }
+        writer = new Thread(this::writeLoop, "move-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a move, then waits as long as the durability mode asks for
+     *
+     * @throws DataAccessException if the DAO is closed or its writer has
+     *                             stopped, the wait was interrupted, or in
+     *                             the waiting modes when the write failed; a
+     *                             transient failure stays queued and is tried
+     *                             again, any other drops the move
+     * @throws IllegalArgumentException if the ply is negative or above
+     *                                  {@link #MAX_PLY}
+     */
+    @Override
+    public void appendMove(int gameID, int ply, int move) throws DataAccessException {
+        if (ply < 0 || ply > MAX_PLY) {
+            throw new IllegalArgumentException("Ply " + ply + " is outside 0-" + MAX_PLY);
+        }
+        long record = (long) gameID << 32 | (long) ply << 15 | (move & PackedMove.MOVE_MASK);
+        lock.lock();
+        try {
+            if (tail - head == records.length && !closed && !writer_stopped) {
+                blocked_appends++;
+                long start = System.nanoTime();
+                try {
+                    while (tail - head == records.length && !closed && !writer_stopped) {
+                        not_full.await();
+                    }
+                } finally {
+                    blocked_nanos += System.nanoTime() - start;
+                }
+            }
+            if (closed) {
+                throw new DataAccessException("Move writer is closed");
+            }
+            if (writer_stopped) {
+                throw new DataAccessException("Move writer has stopped");
+            }
+            if (broken_games.contains(gameID)) {
+                throw new DataAccessException("Game " + gameID + " lost a move and cannot save more");
+            }
+            records[(int) (tail % records.length)] = record;
+            long number = ++tail;
+            if (durability == Durability.WRITE_THROUGH) {
+                wanted = Math.max(wanted, number);
+            }
+            if (durability == Durability.WRITE_THROUGH || tail - head >= batch_size) {
+                has_work.signal();
+            }
+            if (durability != Durability.WRITE_BEHIND) {
+                awaitCommitted(number);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while saving a move");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // call with the lock held
+    private void awaitCommitted(long number) throws InterruptedException, DataAccessException {
+        while (head < number) {
+            if (writer_stopped) {
+                throw new DataAccessException("Move writer stopped before the move was saved");
+            }
+            SQLException error = last_error;
+            committed_more.await();
+            if (head < number && last_error != null && last_error != error) {
+                throw new DataAccessException("Could not save move yet: " + last_error.getMessage());
+            }
+        }
+        if (dropped_numbers[(int) ((number - 1) % records.length)] == number) {
+            throw new DataAccessException("Move could not be saved and was dropped: "
+                    + last_drop);
+        }
+    }
+
+    /**
+     * Writes everything queued so far and waits for it to commit
+     */
+    public void flush() throws DataAccessException {
+        lock.lock();
+        try {
+            long number = tail;
+            wanted = Math.max(wanted, number);
+            has_work.signal();
+            awaitCommitted(number);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while saving moves");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves anything queued, then reads the game's moves
+     */
+    @Override
+    public List<LoggedMove> getMoves(int gameID, int fromPly) throws DataAccessException {
+        flush();
+        try (Connection conn = data_source.getConnection(); PreparedStatement statement = conn.prepareStatement(SELECT)) {
+            statement.setInt(1, gameID);
+            statement.setInt(2, fromPly);
+            try (ResultSet rs = statement.executeQuery()) {
+                List<LoggedMove> moves = new ArrayList<>();
+                while (rs.next()) {
+                    moves.add(new LoggedMove(rs.getInt(1), rs.getShort(2) & PackedMove.MOVE_MASK));
+                }
+                return moves;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not read moves: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveSnapshot(GameSnapshot snapshot) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(INSERT_SNAPSHOT)) {
+            statement.setInt(1, snapshot.gameID());
+            statement.setInt(2, snapshot.ply());
+            statement.setBytes(3, snapshot.position());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not save snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public GameSnapshot getLatestSnapshot(int gameID) throws DataAccessException {
+        try (Connection conn = data_source.getConnection();
+             PreparedStatement statement = conn.prepareStatement(SELECT_SNAPSHOT)) {
+            statement.setInt(1, gameID);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new GameSnapshot(gameID, rs.getInt(1), rs.getBytes(2)) : null;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not read snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        flush();
+        try (Connection conn = data_source.getConnection(); Statement statement = conn.createStatement()) {
+            statement.executeUpdate("DELETE FROM game_move");
+            statement.executeUpdate("DELETE FROM game_snapshot");
+        } catch (SQLException e) {
+            throw new DataAccessException("Could not clear moves: " + e.getMessage());
+        }
+        broken_games.clear();
+    }
+
+    /**
+     * Stops taking moves, writes what is queued and stops the writer thread
+     *
+     * @throws DataAccessException if some queued moves could not be written
+     */
+    @Override
+    public void close() throws DataAccessException {
+        lock.lock();
+        try {
+            closed = true;
+            has_work.signal();
+            not_full.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while closing the move writer");
+        }
+        lock.lock();
+        try {
+            if (tail > head) {
+                throw new DataAccessException((tail - head) + " moves were never saved: "
+                        + (last_error == null ? "writer stopped" : last_error.getMessage()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.lock();
+        try {
+            return new Stats((int) (tail - head), records.length, tail, head, batches, largest_batch,
+                    blocked_appends, blocked_nanos, failed_flushes, dropped);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            writeBatches();
+        } catch (InterruptedException e) {
+            log.warn("Move writer interrupted with {} moves queued", getStats().queued());
+        } catch (RuntimeException e) {
+            log.error("Move writer failed", e);
+        } finally {
+            // nothing will be written from here on, so wake everyone waiting
+            lock.lock();
+            try {
+                writer_stopped = true;
+                committed_more.signalAll();
+                not_full.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void writeBatches() throws InterruptedException {
+        long batch[] = new long[batch_size];
+        boolean failed[] = new boolean[batch_size];
+        while (true) {
+            int count;
+            boolean refusing = false;
+            lock.lock();
+            try {
+                long deadline = System.nanoTime() + flush_interval_nanos;
+                while (!closed && tail - head < batch_size && wanted <= head) {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0) {
+                        if (tail > head) {
+                            break;
+                        }
+                        deadline = System.nanoTime() + flush_interval_nanos;
+                        left = flush_interval_nanos;
+                    }
+                    has_work.awaitNanos(left);
+                }
+                if (tail == head) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                count = (int) Math.min(tail - head, batch_size);
+                for (int i = 0; i < count; i++) {
+                    batch[i] = records[(int) ((head + i) % records.length)];
+                    refusing |= broken_games.contains((int) (batch[i] >>> 32));
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            SQLException error = null;
+            int lost = 0;
+            if (!refusing) {
+                try {
+                    write(batch, count);
+                } catch (SQLException e) {
+                    error = e;
+                }
+            }
+            if (refusing || (error != null && !isTransient(error))) {
+                // most likely one bad move; save the rest one at a time
+                try {
+                    lost = writeEach(batch, count, failed);
+                    error = null;
+                } catch (SQLException e) {
+                    error = e;
+                }
+            }
+
+            lock.lock();
+            try {
+                if (error == null) {
+                    for (int i = 0; lost > 0 && i < count; i++) {
+                        if (failed[i]) {
+                            dropped_numbers[(int) ((head + i) % records.length)] = head + i + 1;
+                        }
+                    }
+                    head += count;
+                    batches++;
+                    largest_batch = Math.max(largest_batch, count);
+                    dropped += lost;
+                    last_error = null;
+                    if (lost > 0) {
+                        last_drop = drop_reason;
+                    }
+                    not_full.signalAll();
+                } else {
+                    failed_flushes++;
+                    last_error = error;
+                }
+                committed_more.signalAll();
+                if (error != null) {
+                    if (closed) {
+                        return;
+                    }
+                    // give the database a moment before trying the same batch again
+                    has_work.awaitNanos(flush_interval_nanos);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return True if trying again may succeed: the connection was lost, a
+     * timeout ran out, or the transaction lost a deadlock or serialization
+     * conflict (SQL state classes 08 and 40)
+     */
+    static boolean isTransient(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && (sql.getSQLState().startsWith("08") || sql.getSQLState().startsWith("40"))) {
+                return true;
+            }
+        }
+        // a failed batch chains the errors of its statements
+        SQLException next = e.getNextException();
+        return next != null && isTransient(next);
+    }
+
+    private void write(long batch[], int count) throws SQLException {
+        try (Connection conn = data_source.getConnection()) {
+            conn.setAutoCommit(false);
+            SQLException failure = null;
+            try (PreparedStatement statement = conn.prepareStatement(INSERT)) {
+                for (int i = 0; i < count; i++) {
+                    bind(statement, batch[i]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                failure = e;
+                try {
+                    conn.rollback();
+                } catch (SQLException rollback) {
+                    failure.addSuppressed(rollback);
+                }
+            }
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException e) {
+                if (failure == null) {
+                    // the batch is committed; the pool will not reuse a connection left in a transaction
+                    log.debug("Could not reset auto-commit after a batch", e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Writes each move in its own statement, marking the ones that fail for
+     * good in failed. A game whose move fails is marked broken, and its
+     * later moves are marked failed without being written.
+     *
+     * @return how many moves failed
+     * @throws SQLException on the first transient failure, so the whole batch
+     *                      is tried again later
+     */
+    private int writeEach(long batch[], int count, boolean failed[]) throws SQLException {
+        int lost = 0;
+        try (Connection conn = data_source.getConnection(); PreparedStatement statement = conn.prepareStatement(INSERT)) {
+            for (int i = 0; i < count; i++) {
+                int gameID = (int) (batch[i] >>> 32);
+                failed[i] = broken_games.contains(gameID);
+                if (failed[i]) {
+                    lost++;
+                    drop_reason = "game " + gameID + " lost an earlier move";
+                    continue;
+                }
+                bind(statement, batch[i]);
+                try {
+                    statement.executeUpdate();
+                } catch (SQLException e) {
+                    if (isTransient(e)) {
+                        throw e;
+                    }
+                    failed[i] = true;
+                    lost++;
+                    drop_reason = e.getMessage();
+                    broken_games.add(gameID);
+                    log.error("Dropping move {} at ply {} of game {}, which takes no more moves: {}",
+                            batch[i] & PackedMove.MOVE_MASK, (batch[i] >>> 15) & 0x1FFFF, gameID, e.getMessage());
+                }
+            }
+        }
+        return lost;
+    }
+
+    private static void bind(PreparedStatement statement, long record) throws SQLException {
+        statement.setInt(1, (int) (record >>> 32));
+        statement.setInt(2, (int) (record >>> 15) & 0x1FFFF);
+        statement.setShort(3, (short) (record & PackedMove.MOVE_MASK));
+    }
+}
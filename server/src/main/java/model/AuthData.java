@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * A session token handed out at login or registration
+ */
+public record AuthData(String authToken, String username) {
+}
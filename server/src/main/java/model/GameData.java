@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * Who is playing a game and what it is called. The game itself lives in
+ * {@link server.GameRegistry} under the same ID.
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName) {
+}
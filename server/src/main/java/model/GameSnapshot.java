@@ -0,0 +1,8 @@
+package model;
+
+/**
+ * A game's position after a number of half-moves, in
+ * {@link chess.BinaryPosition} form
+ */
+public record GameSnapshot(int gameID, int ply, byte[] position) {
+}
@@ -0,0 +1,10 @@
+package model;
+
+/**
+ * One move from a game's move log
+ *
+ * @param ply  half-moves played in the game before this one
+ * @param move the move as {@link chess.PackedMove#fromChessMove}
+ */
+public record LoggedMove(int ply, int move) {
+}
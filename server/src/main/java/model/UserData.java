@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * A registered user. Stored passwords are BCrypt hashes, never plain text.
+ */
+public record UserData(String username, String password, String email) {
+}
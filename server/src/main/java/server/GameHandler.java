@@ -0,0 +1,95 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import com.google.gson.Gson;
+import dataAccess.DataAccessException;
+import model.AuthData;
+import model.GameData;
+import service.GameService;
+import service.ServiceException;
+import service.UserService;
+import spark.Request;
+import spark.Response;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Routes for listing, creating, joining and playing games. Every one of them
+ * needs a logged in user.
+ */
+public class GameHandler {
+    private record CreateGameRequest(String gameName) {
+    }
+
+    private record JoinGameRequest(ChessGame.TeamColor playerColor, Integer gameID) {
+    }
+
+    private record ListGamesResult(Collection<GameData> games) {
+    }
+
+    private record Square(int row, int col) {
+    }
+
+    private record MakeMoveRequest(Integer gameID, Square start, Square end, ChessPiece.PieceType promotionPiece) {
+    }
+
+    private final GameService games;
+    private final UserService users;
+    private final Gson gson;
+
+    public GameHandler(GameService games, UserService users, Gson gson) {
+        this.games = games;
+        this.users = users;
+        this.gson = gson;
+    }
+
+    public Object listGames(Request req, Response res) throws ServiceException, DataAccessException {
+        users.authenticate(req.headers("authorization"));
+        return gson.toJson(new ListGamesResult(games.listGames()));
+    }
+
+    public Object createGame(Request req, Response res) throws ServiceException, DataAccessException {
+        users.authenticate(req.headers("authorization"));
+        CreateGameRequest request = gson.fromJson(req.body(), CreateGameRequest.class);
+        if (request == null) {
+            throw ServiceException.badRequest();
+        }
+        return gson.toJson(Map.of("gameID", games.createGame(request.gameName())));
+    }
+
+    public Object joinGame(Request req, Response res) throws ServiceException, DataAccessException {
+        AuthData auth = users.authenticate(req.headers("authorization"));
+        JoinGameRequest request = gson.fromJson(req.body(), JoinGameRequest.class);
+        if (request == null) {
+            throw ServiceException.badRequest();
+        }
+        games.joinGame(auth.username(), request.playerColor(), request.gameID());
+        return "{}";
+    }
+
+    /**
+     * Plays a move for the logged in player
+     *
+     * @return the position after the move, as FEN
+     */
+    public Object makeMove(Request req, Response res) throws ServiceException, DataAccessException {
+        AuthData auth = users.authenticate(req.headers("authorization"));
+        MakeMoveRequest request = gson.fromJson(req.body(), MakeMoveRequest.class);
+        if (request == null || request.gameID() == null || !onBoard(request.start()) || !onBoard(request.end())) {
+            throw ServiceException.badRequest();
+        }
+        ChessMove move = ChessMove.of(ChessPosition.of(request.start().row(), request.start().col()),
+                ChessPosition.of(request.end().row(), request.end().col()), request.promotionPiece());
+        ChessGame after = games.makeMove(auth.username(), request.gameID(), move);
+        return gson.toJson(Map.of("fen", Fen.toFen(after)));
+    }
+
+    private static boolean onBoard(Square square) {
+        return square != null && square.row() >= 1 && square.row() <= 8 && square.col() >= 1 && square.col() <= 8;
+    }
+}
@@ -0,0 +1,338 @@
+package server;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Holds the live {@link ChessGame} of every game the server is running.
+ * <p>
+ * Games are spread over a fixed number of shards by ID, each with its own
+ * lock and map, so work on games in different shards never waits on the
+ * same lock. A game is only ever touched while its shard's lock is held;
+ * callers get copies out, never the live instance. Those copies keep only
+ * the moves since the last capture or pawn move, which is all a repetition
+ * can reach, so handing one out does not cost time for the whole game.
+ * Games put in are copied with their whole move history.
+ */
+public class GameRegistry {
+    /**
+     * Counters for one shard
+     *
+     * @param games        live games in the shard
+     * @param acquisitions times the shard's lock was taken
+     * @param contended    times a caller had to wait because the lock was
+     *                     already held
+     */
+    public record ShardStats(int games, long acquisitions, long contended) {
+    }
+
+    /**
+     * Saves a move somewhere else while the game's shard is still locked
+     */
+    @FunctionalInterface
+    public interface MoveRecorder<E extends Exception> {
+        /**
+         * @param after a copy of the game after the move
+         */
+        void record(ChessGame after) throws E;
+    }
+
+    private static final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final HashMap<Integer, ChessGame> games = new HashMap<>();
+        final LongAdder acquisitions = new LongAdder();
+        final LongAdder contended = new LongAdder();
+
+        void lock() {
+            if (!lock.tryLock()) {
+                contended.increment();
+                lock.lock();
+            }
+            acquisitions.increment();
+        }
+    }
+
+    private final Shard shards[];
+    private final int mask;
+    private final AtomicInteger next_id = new AtomicInteger(1);
+
+    /**
+     * Makes a registry with enough shards that a few thousand busy games
+     * rarely share a lock
+     */
+    public GameRegistry() {
+        this(256);
+    }
+
+    /**
+     * @param shardCount number of independently locked shards, rounded up to
+     *                   a power of two
+     */
+    public GameRegistry(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("A registry needs at least one shard");
+        }
+        int size = Integer.highestOneBit(shardCount);
+        if (size < shardCount) {
+            size <<= 1;
+        }
+        shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        mask = size - 1;
+    }
+
+    private Shard shardOf(int gameID) {
+        // IDs are handed out in order, so the low bits already spread evenly
+        return shards[gameID & mask];
+    }
+
+    /**
+     * Adds a game in the standard starting position
+     *
+     * @return the new game's ID
+     */
+    public int createGame() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        int gameID = next_id.getAndIncrement();
+        insert(gameID, game);
+        return gameID;
+    }
+
+    /**
+     * Adds a copy of the given game under a new ID
+     *
+     * @return the new game's ID
+     */
+    public int addGame(ChessGame game) {
+        int gameID = next_id.getAndIncrement();
+        insert(gameID, new ChessGame(game));
+        return gameID;
+    }
+
+    /**
+     * Stores a copy of the given game under an ID chosen elsewhere, such as
+     * one loaded back from storage, replacing any game already there
+     */
+    public void putGame(int gameID, ChessGame game) {
+        next_id.accumulateAndGet(gameID + 1, Math::max);
+        insert(gameID, new ChessGame(game));
+    }
+
+    /**
+     * Stores a copy of the given game unless a game with that ID is already
+     * live, as when two requests load the same stored game at once
+     *
+     * @return a copy of whichever game is live afterwards
+     */
+    public ChessGame putGameIfAbsent(int gameID, ChessGame game) {
+        next_id.accumulateAndGet(gameID + 1, Math::max);
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            return shard.games.computeIfAbsent(gameID, id -> new ChessGame(game)).copyRecent();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    private void insert(int gameID, ChessGame game) {
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            shard.games.put(gameID, game);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an action on a live game while holding its shard's lock. The
+     * action must not keep the game or anything it hands out.
+     *
+     * @return what the action returned
+     * @throws IllegalArgumentException if there is no game with that ID
+     */
+    public <T> T withGame(int gameID, Function<ChessGame, T> action) {
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            ChessGame game = shard.games.get(gameID);
+            if (game == null) {
+                throw new IllegalArgumentException("No game with ID " + gameID);
+            }
+            return action.apply(game);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Plays a move in a live game
+     *
+     * @return a copy of the game after the move
+     * @throws InvalidMoveException     if the move is not legal in the game
+     * @throws IllegalArgumentException if there is no game with that ID
+     */
+    public ChessGame makeMove(int gameID, ChessMove move) throws InvalidMoveException {
+        return makeMove(gameID, move, null);
+    }
+
+    /**
+     * Plays a move in a live game, but only on the given side's turn. The
+     * turn is checked under the same lock as the move, so two moves sent at
+     * once by the same player cannot both go through.
+     *
+     * @param mover side that must be to move, or null for either
+     * @return a copy of the game after the move
+     * @throws InvalidMoveException     if it is not the mover's turn or the
+     *                                  move is not legal in the game
+     * @throws IllegalArgumentException if there is no game with that ID
+     */
+    public ChessGame makeMove(int gameID, ChessMove move, ChessGame.TeamColor mover) throws InvalidMoveException {
+        return makeMove(gameID, move, mover, after -> {
+        });
+    }
+
+    /**
+     * Same as {@link #makeMove(int, ChessMove, ChessGame.TeamColor)}, and
+     * hands the game after the move to the recorder before the lock is let
+     * go. If the recorder throws, the move is taken back, so the live game
+     * and whatever the recorder writes to never disagree. The lock is held
+     * while the recorder runs, so it holds up other games in the shard.
+     *
+     * @throws E whatever the recorder throws, after the move is taken back
+     */
+    public <E extends Exception> ChessGame makeMove(int gameID, ChessMove move, ChessGame.TeamColor mover,
+                                                    MoveRecorder<E> recorder) throws InvalidMoveException, E {
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            ChessGame game = shard.games.get(gameID);
+            if (game == null) {
+                throw new IllegalArgumentException("No game with ID " + gameID);
+            }
+            if (mover != null && game.getTeamTurn() != mover) {
+                throw new InvalidMoveException("It is not " + mover + "'s turn");
+            }
+            game.makeMove(move);
+            ChessGame after = game.copyRecent();
+            try {
+                recorder.record(after);
+            } catch (Throwable e) {
+                game.unmakeMove();
+                throw e;
+            }
+            return after;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * @return a copy of the game, or null if there is no game with that ID
+     */
+    public ChessGame getGame(int gameID) {
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            ChessGame game = shard.games.get(gameID);
+            return game == null ? null : game.copyRecent();
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if there is a live game with that ID
+     */
+    public boolean containsGame(int gameID) {
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            return shard.games.containsKey(gameID);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if there was a game with that ID to remove
+     */
+    public boolean removeGame(int gameID) {
+        Shard shard = shardOf(gameID);
+        shard.lock();
+        try {
+            return shard.games.remove(gameID) != null;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Removes every game
+     */
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock();
+            try {
+                shard.games.clear();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return number of live games, added up one shard at a time, so it may
+     * be slightly out of date while games are being added or removed
+     */
+    public int size() {
+        int total = 0;
+        for (Shard shard : shards) {
+            shard.lock();
+            try {
+                total += shard.games.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @return counters for each shard, in shard order
+     */
+    public List<ShardStats> getShardStats() {
+        List<ShardStats> stats = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            int games;
+            shard.lock.lock();
+            try {
+                games = shard.games.size();
+            } finally {
+                shard.lock.unlock();
+            }
+            stats.add(new ShardStats(games, shard.acquisitions.sum(), shard.contended.sum()));
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,165 @@
+package server;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import dataAccess.DataAccessException;
+import dataAccess.MemoryAuthDAO;
+import dataAccess.MemoryGameDAO;
+import dataAccess.MemoryMoveDAO;
+import dataAccess.MemoryUserDAO;
+import dataAccess.MoveDAO;
+import dataAccess.SqlAuthDAO;
+import dataAccess.SqlGameDAO;
+import dataAccess.SqlUserDAO;
+import dataAccess.WriteBehindMoveDAO;
+import service.GameService;
+import service.ServiceException;
+import service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * The HTTP server. Requests are handled on virtual threads from a
+ * {@link VirtualThreadPool}, so a handler waiting on storage does not hold
+ * up a platform thread.
+ */
+public class Server {
+    private static final Logger log = LoggerFactory.getLogger(Server.class);
+
+    private final UserService users;
+    private final GameService games;
+    private final GameRegistry registry;
+    private final MoveDAO moves;
+    // the database the server closes when it stops, if it can be closed
+    private final AutoCloseable database;
+    private final VirtualThreadPool thread_pool;
+    private final Gson gson = new Gson();
+
+    public Server() {
+        this(new VirtualThreadPool());
+    }
+
+    public Server(VirtualThreadPool threadPool) {
+        this.registry = new GameRegistry();
+        this.moves = new MemoryMoveDAO();
+        this.users = new UserService(new MemoryUserDAO(), new MemoryAuthDAO());
+        this.games = new GameService(new MemoryGameDAO(), moves, registry);
+        this.database = null;
+        this.thread_pool = threadPool;
+    }
+
+    /**
+     * Keeps users, sessions, games and moves in the given database. The
+     * server takes over the data source: if it is {@link AutoCloseable}, such
+     * as a {@link dataAccess.ConnectionPool}, it is closed when the server
+     * stops or when this constructor fails.
+     *
+     * @throws DataAccessException if the tables cannot be created
+     */
+    public Server(DataSource database) throws DataAccessException {
+        this(database, new VirtualThreadPool());
+    }
+
+    public Server(DataSource database, VirtualThreadPool threadPool) throws DataAccessException {
+        this.registry = new GameRegistry();
+        this.database = database instanceof AutoCloseable closeable ? closeable : null;
+        this.thread_pool = threadPool;
+        WriteBehindMoveDAO writer = null;
+        try {
+            writer = new WriteBehindMoveDAO(database, WriteBehindMoveDAO.Durability.GROUP_COMMIT, 4096, 256, 5);
+            this.users = new UserService(new SqlUserDAO(database), new SqlAuthDAO(database));
+            this.games = new GameService(new SqlGameDAO(database), writer, registry);
+        } catch (DataAccessException | RuntimeException e) {
+            // stop the writer thread and the pooled connections already started
+            for (AutoCloseable started : new AutoCloseable[]{writer, this.database}) {
+                try {
+                    if (started != null) {
+                        started.close();
+                    }
+                } catch (Exception closing) {
+                    e.addSuppressed(closing);
+                }
+            }
+            throw e;
+        }
+        this.moves = writer;
+    }
+
+    /**
+     * Starts serving and waits until the server is ready
+     *
+     * @param desiredPort port to listen on, 0 for any free port
+     * @return the port the server is listening on
+     */
+    public int run(int desiredPort) {
+        // Spark looks its embedded server up in a static table, so the pool
+        // has to be registered before the first route is added
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY, new EmbeddedJettyFactory().withThreadPool(thread_pool));
+        Spark.port(desiredPort);
+
+        UserHandler userHandler = new UserHandler(users, gson);
+        GameHandler gameHandler = new GameHandler(games, users, gson);
+        Spark.before((req, res) -> res.type("application/json"));
+        Spark.delete("/db", (req, res) -> {
+            games.clear();
+            users.clear();
+            return "{}";
+        });
+        Spark.post("/user", userHandler::register);
+        Spark.post("/session", userHandler::login);
+        Spark.delete("/session", userHandler::logout);
+        Spark.get("/game", gameHandler::listGames);
+        Spark.post("/game", gameHandler::createGame);
+        Spark.put("/game", gameHandler::joinGame);
+        Spark.post("/game/move", gameHandler::makeMove);
+
+        Spark.exception(ServiceException.class, (e, req, res) -> {
+            res.status(e.getStatusCode());
+            res.body(gson.toJson(Map.of("message", e.getMessage())));
+        });
+        Spark.exception(JsonParseException.class, (e, req, res) -> {
+            res.status(400);
+            res.body(gson.toJson(Map.of("message", "Error: bad request")));
+        });
+        Spark.exception(DataAccessException.class, (e, req, res) -> {
+            res.status(500);
+            res.body(gson.toJson(Map.of("message", "Error: " + e.getMessage())));
+        });
+
+        Spark.awaitInitialization();
+        return Spark.port();
+    }
+
+    public void stop() {
+        Spark.stop();
+        Spark.awaitStop();
+        if (moves instanceof WriteBehindMoveDAO writer) {
+            try {
+                writer.close();
+            } catch (DataAccessException e) {
+                log.error("Moves still queued at shutdown were not saved: {}", e.getMessage());
+            }
+        }
+        if (database != null) {
+            try {
+                database.close();
+            } catch (Exception e) {
+                log.error("Could not close the database: {}", e.getMessage());
+            }
+        }
+    }
+
+    public VirtualThreadPool getThreadPool() {
+        return thread_pool;
+    }
+
+    public GameRegistry getGameRegistry() {
+        return registry;
+    }
+}
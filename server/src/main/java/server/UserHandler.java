@@ -0,0 +1,38 @@
+package server;
+
+import com.google.gson.Gson;
+import dataAccess.DataAccessException;
+import model.AuthData;
+import model.UserData;
+import service.ServiceException;
+import service.UserService;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Routes for registering, logging in and logging out
+ */
+public class UserHandler {
+    private final UserService service;
+    private final Gson gson;
+
+    public UserHandler(UserService service, Gson gson) {
+        this.service = service;
+        this.gson = gson;
+    }
+
+    public Object register(Request req, Response res) throws ServiceException, DataAccessException {
+        AuthData auth = service.register(gson.fromJson(req.body(), UserData.class));
+        return gson.toJson(auth);
+    }
+
+    public Object login(Request req, Response res) throws ServiceException, DataAccessException {
+        AuthData auth = service.login(gson.fromJson(req.body(), UserData.class));
+        return gson.toJson(auth);
+    }
+
+    public Object logout(Request req, Response res) throws ServiceException, DataAccessException {
+        service.logout(req.headers("authorization"));
+        return "{}";
+    }
+}
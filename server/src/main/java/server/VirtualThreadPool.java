@@ -0,0 +1,153 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A Jetty {@link ThreadPool} that runs every task on a new virtual thread.
+ * <p>
+ * Request handlers spend most of their time waiting on the database. On a
+ * virtual thread that wait parks the thread instead of holding a platform
+ * thread, so slow queries no longer cap how many requests are in flight.
+ * That only holds while the wait is not inside a synchronized block, which
+ * pins the carrier thread on JDK 21. MySQL Connector/J 9 uses locks for
+ * this, but Jetty 9.4 (fixed by Spark) still synchronizes around some of
+ * its own I/O. Check for pinning with {@code -Djdk.tracePinnedThreads=short}.
+ * A cap is still kept: once that many tasks are running, new ones are
+ * rejected and Jetty closes the connection rather than letting work pile up
+ * without bound.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    public static final int DEFAULT_MAX_THREADS = 10_000;
+
+    private final int max_threads;
+    private final ThreadFactory factory;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger peak = new AtomicInteger();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Object stop_lock = new Object();
+
+    public VirtualThreadPool() {
+        this(DEFAULT_MAX_THREADS);
+    }
+
+    /**
+     * @param maxThreads most tasks allowed to run at once
+     */
+    public VirtualThreadPool(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+        this.max_threads = maxThreads;
+        this.factory = Thread.ofVirtual().name("http-", 0).factory();
+    }
+
+    /**
+     * @throws RejectedExecutionException if the pool is stopped or already
+     *                                    running its maximum number of tasks
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (!isRunning()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Thread pool is not running");
+        }
+        int now = running.incrementAndGet();
+        if (now > max_threads) {
+            running.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("All " + max_threads + " threads are busy");
+        }
+        peak.accumulateAndGet(now, Math::max);
+        started.increment();
+        factory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                running.decrementAndGet();
+            }
+        }).start();
+    }
+
+    /**
+     * Waits until the pool starts stopping
+     */
+    @Override
+    public void join() throws InterruptedException {
+        synchronized (stop_lock) {
+            while (isRunning()) {
+                stop_lock.wait();
+            }
+        }
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        synchronized (stop_lock) {
+            stop_lock.notifyAll();
+        }
+    }
+
+    /**
+     * @return tasks running right now
+     */
+    @Override
+    public int getThreads() {
+        return running.get();
+    }
+
+    /**
+     * @return always 0, threads are not kept around between tasks
+     */
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    /**
+     * @return true once at least 90% of the allowed threads are busy
+     */
+    @Override
+    public boolean isLowOnThreads() {
+        return running.get() >= max_threads - max_threads / 10;
+    }
+
+    public int getMaxThreads() {
+        return max_threads;
+    }
+
+    /**
+     * @return busy share of the allowed threads, from 0 to 1
+     */
+    public double getSaturation() {
+        return (double) running.get() / max_threads;
+    }
+
+    /**
+     * @return most tasks ever running at once
+     */
+    public int getPeakThreads() {
+        return peak.get();
+    }
+
+    /**
+     * @return tasks started since the pool was made
+     */
+    public long getStartedCount() {
+        return started.sum();
+    }
+
+    /**
+     * @return tasks turned away because the pool was full or stopped
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
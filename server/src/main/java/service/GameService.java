@@ -0,0 +1,177 @@
+package service;
+
+import chess.BinaryPosition;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.Fen;
+import chess.InvalidMoveException;
+import chess.PackedMove;
+import dataAccess.DataAccessException;
+import dataAccess.GameDAO;
+import dataAccess.MoveDAO;
+import model.GameData;
+import model.GameSnapshot;
+import model.LoggedMove;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import server.GameRegistry;
+
+import java.util.Collection;
+
+public class GameService {
+    private static final Logger log = LoggerFactory.getLogger(GameService.class);
+
+    /**
+     * Half-moves between stored snapshots, so loading a game never replays
+     * more than this many moves
+     */
+    public static final int SNAPSHOT_INTERVAL = 32;
+
+    private final GameDAO games;
+    private final MoveDAO moves;
+    private final GameRegistry registry;
+
+    public GameService(GameDAO games, MoveDAO moves, GameRegistry registry) {
+        this.games = games;
+        this.moves = moves;
+        this.registry = registry;
+    }
+
+    public Collection<GameData> listGames() throws DataAccessException {
+        return games.listGames();
+    }
+
+    /**
+     * Creates a game in the starting position
+     *
+     * @return the new game's ID
+     * @throws ServiceException 400 if the name is missing
+     */
+    public int createGame(String gameName) throws ServiceException, DataAccessException {
+        if (gameName == null || gameName.isBlank()) {
+            throw ServiceException.badRequest();
+        }
+        int gameID = games.createGame(gameName);
+        ChessGame game = Fen.parse(Fen.START);
+        moves.saveSnapshot(new GameSnapshot(gameID, plyOf(game), BinaryPosition.encode(game)));
+        registry.putGame(gameID, game);
+        return gameID;
+    }
+
+    /**
+     * @return a copy of the game, loaded back from storage if it is not live
+     * @throws ServiceException 400 if the game does not exist
+     */
+    public ChessGame getGame(int gameID) throws ServiceException, DataAccessException {
+        ChessGame game = registry.getGame(gameID);
+        if (game != null) {
+            return game;
+        }
+        if (games.getGame(gameID) == null) {
+            throw ServiceException.badRequest();
+        }
+        return registry.putGameIfAbsent(gameID, loadGame(gameID));
+    }
+
+    /**
+     * Rebuilds a game from its newest snapshot and the moves played since
+     *
+     * @throws DataAccessException if the log skips a ply or holds a move
+     *                             that is not legal where it was played
+     */
+    private ChessGame loadGame(int gameID) throws DataAccessException {
+        GameSnapshot snapshot = moves.getLatestSnapshot(gameID);
+        ChessGame game = snapshot == null ? Fen.parse(Fen.START) : BinaryPosition.decode(snapshot.position());
+        int ply = plyOf(game);
+        for (LoggedMove logged : moves.getMoves(gameID, ply)) {
+            if (logged.ply() != ply) {
+                throw new DataAccessException("Move log of game " + gameID + " is missing ply " + ply);
+            }
+            try {
+                game.makeMove(PackedMove.toChessMove(logged.move()));
+            } catch (InvalidMoveException e) {
+                throw new DataAccessException("Stored move " + PackedMove.toChessMove(logged.move()) + " in game "
+                        + gameID + " is not legal: " + e.getMessage());
+            }
+            ply++;
+        }
+        return game;
+    }
+
+    /**
+     * @return half-moves played to reach the game's position, counted from
+     * the fullmove number and the side to move
+     */
+    private static int plyOf(ChessGame game) {
+        return 2 * (game.getFullmoveNumber() - 1) + (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0);
+    }
+
+    /**
+     * Seats the user as the given color, or just lets them watch when the
+     * color is null
+     *
+     * @throws ServiceException 400 if the game does not exist, 403 if the
+     *                          seat is taken
+     */
+    public void joinGame(String username, ChessGame.TeamColor color, Integer gameID)
+            throws ServiceException, DataAccessException {
+        if (gameID == null || games.getGame(gameID) == null) {
+            throw ServiceException.badRequest();
+        }
+        if (color != null && !games.claimSeat(gameID, color, username)) {
+            throw ServiceException.alreadyTaken();
+        }
+    }
+
+    /**
+     * Plays a move for a seated player and records it
+     *
+     * @return the game after the move
+     * @throws ServiceException 400 if the game does not exist or the move is
+     *                          not legal, 403 if the user is not the player
+     *                          whose turn it is
+     */
+    public ChessGame makeMove(String username, int gameID, ChessMove move) throws ServiceException, DataAccessException {
+        GameData data = games.getGame(gameID);
+        if (data == null || move == null) {
+            throw ServiceException.badRequest();
+        }
+        boolean white = username.equals(data.whiteUsername());
+        boolean black = username.equals(data.blackUsername());
+        if (!white && !black) {
+            throw new ServiceException(403, "Error: not a player in this game");
+        }
+        // someone seated on both sides may move for either
+        ChessGame.TeamColor color = white && black ? null : white ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        // a stored game is not live after a restart until something loads it
+        if (!registry.containsGame(gameID)) {
+            registry.putGameIfAbsent(gameID, loadGame(gameID));
+        }
+        ChessGame after;
+        try {
+            // the move is logged under the game's lock and taken back if that
+            // fails, so the live game never gets ahead of its log
+            after = registry.makeMove(gameID, move, color,
+                    game -> moves.appendMove(gameID, plyOf(game) - 1, PackedMove.fromChessMove(move)));
+        } catch (InvalidMoveException e) {
+            throw new ServiceException(400, "Error: " + e.getMessage());
+        }
+        int ply = plyOf(after);
+        if (ply % SNAPSHOT_INTERVAL == 0) {
+            // the move is already saved; without this snapshot loading just
+            // replays from an older one
+            try {
+                moves.saveSnapshot(new GameSnapshot(gameID, ply, BinaryPosition.encode(after)));
+            } catch (DataAccessException e) {
+                log.warn("Could not save the snapshot of game {} at ply {}: {}", gameID, ply, e.getMessage());
+            }
+        }
+        return after;
+    }
+
+    public void clear() throws DataAccessException {
+        games.clear();
+        moves.clear();
+        registry.clear();
+    }
+}
@@ -0,0 +1,30 @@
+package service;
+
+/**
+ * A request that cannot be carried out, with the HTTP status to answer it
+ * with
+ */
+public class ServiceException extends Exception {
+    private final int status_code;
+
+    public ServiceException(int statusCode, String message) {
+        super(message);
+        this.status_code = statusCode;
+    }
+
+    public static ServiceException badRequest() {
+        return new ServiceException(400, "Error: bad request");
+    }
+
+    public static ServiceException unauthorized() {
+        return new ServiceException(401, "Error: unauthorized");
+    }
+
+    public static ServiceException alreadyTaken() {
+        return new ServiceException(403, "Error: already taken");
+    }
+
+    public int getStatusCode() {
+        return status_code;
+    }
+}
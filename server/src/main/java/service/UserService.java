@@ -0,0 +1,84 @@
+package service;
+
+import dataAccess.AuthDAO;
+import dataAccess.DataAccessException;
+import dataAccess.UserDAO;
+import model.AuthData;
+import model.UserData;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.UUID;
+
+public class UserService {
+    private final UserDAO users;
+    private final AuthDAO sessions;
+
+    public UserService(UserDAO users, AuthDAO sessions) {
+        this.users = users;
+        this.sessions = sessions;
+    }
+
+    /**
+     * Creates a user and logs them in
+     *
+     * @throws ServiceException 400 if a field is missing, 403 if the name is
+     *                          taken
+     */
+    public AuthData register(UserData request) throws ServiceException, DataAccessException {
+        if (request == null || request.username() == null || request.password() == null || request.email() == null) {
+            throw ServiceException.badRequest();
+        }
+        String hash = BCrypt.hashpw(request.password(), BCrypt.gensalt());
+        if (!users.createUser(new UserData(request.username(), hash, request.email()))) {
+            throw ServiceException.alreadyTaken();
+        }
+        return startSession(request.username());
+    }
+
+    /**
+     * @throws ServiceException 400 if a field is missing, 401 if the name or
+     *                          password is wrong
+     */
+    public AuthData login(UserData request) throws ServiceException, DataAccessException {
+        if (request == null || request.username() == null || request.password() == null) {
+            throw ServiceException.badRequest();
+        }
+        UserData user = users.getUser(request.username());
+        if (user == null || !BCrypt.checkpw(request.password(), user.password())) {
+            throw ServiceException.unauthorized();
+        }
+        return startSession(user.username());
+    }
+
+    /**
+     * @throws ServiceException 401 if the token is unknown
+     */
+    public void logout(String authToken) throws ServiceException, DataAccessException {
+        if (authToken == null || !sessions.deleteAuth(authToken)) {
+            throw ServiceException.unauthorized();
+        }
+    }
+
+    /**
+     * @return the session the token belongs to
+     * @throws ServiceException 401 if the token is unknown
+     */
+    public AuthData authenticate(String authToken) throws ServiceException, DataAccessException {
+        AuthData auth = authToken == null ? null : sessions.getAuth(authToken);
+        if (auth == null) {
+            throw ServiceException.unauthorized();
+        }
+        return auth;
+    }
+
+    public void clear() throws DataAccessException {
+        sessions.clear();
+        users.clear();
+    }
+
+    private AuthData startSession(String username) throws DataAccessException {
+        AuthData auth = new AuthData(UUID.randomUUID().toString(), username);
+        sessions.createAuth(auth);
+        return auth;
+    }
+}
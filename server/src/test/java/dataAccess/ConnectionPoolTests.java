@@ -0,0 +1,170 @@
+package dataAccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConnectionPoolTests {
+    private static final AtomicInteger databases = new AtomicInteger();
+    private String url;
+
+    @BeforeEach
+    public void freshDatabase() {
+        url = "jdbc:h2:mem:pool" + databases.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    private static ConnectionPool.Settings settings(int minIdle, int maxSize, long validateAfterMs, long leakThresholdMs) {
+        return new ConnectionPool.Settings(minIdle, maxSize, 100, validateAfterMs, 600_000, leakThresholdMs, 20);
+    }
+
+    @Test
+    @DisplayName("Pool Opens Its Minimum And Never Exceeds Its Maximum")
+    public void sizing() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", settings(2, 3, 500, 0))) {
+            Assertions.assertEquals(2, pool.getStats().idle());
+
+            List<Connection> held = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                held.add(pool.getConnection());
+            }
+            Assertions.assertEquals(3, pool.getStats().inUse());
+            Assertions.assertThrows(SQLTimeoutException.class, pool::getConnection);
+            Assertions.assertEquals(1, pool.getStats().timeouts());
+
+            for (Connection connection : held) {
+                connection.close();
+            }
+            ConnectionPool.Stats stats = pool.getStats();
+            Assertions.assertEquals(0, stats.inUse());
+            Assertions.assertEquals(3, stats.idle());
+            Assertions.assertEquals(3, stats.created());
+        }
+    }
+
+    @Test
+    @DisplayName("Returned Connections Are Reused And Rolled Back")
+    public void reuse() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", settings(1, 2, 500, 0))) {
+            try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement()) {
+                statement.executeUpdate("CREATE TABLE t (x INT)");
+            }
+            Connection first = pool.getConnection();
+            first.setAutoCommit(false);
+            try (Statement statement = first.createStatement()) {
+                statement.executeUpdate("INSERT INTO t VALUES (1)");
+            }
+            Connection physical = first.unwrap(Connection.class);
+            first.close();
+            first.close();
+            Assertions.assertTrue(first.isClosed());
+            Assertions.assertThrows(SQLException.class, first::createStatement);
+
+            try (Connection conn = pool.getConnection(); Statement statement = conn.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM t")) {
+                Assertions.assertSame(physical, conn.unwrap(Connection.class), "Newest returned connection not reused");
+                Assertions.assertTrue(conn.getAutoCommit());
+                rs.next();
+                Assertions.assertEquals(0, rs.getInt(1), "Uncommitted work survived the return to the pool");
+            }
+            Assertions.assertTrue(pool.getStats().created() <= 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Dead Connections Are Replaced")
+    public void validation() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", settings(1, 1, 0, 0))) {
+            Connection conn = pool.getConnection();
+            Connection physical = conn.unwrap(Connection.class);
+            conn.close();
+            physical.close();
+
+            try (Connection replacement = pool.getConnection()) {
+                Assertions.assertTrue(replacement.isValid(1));
+                Assertions.assertNotSame(physical, replacement.unwrap(Connection.class));
+            }
+            ConnectionPool.Stats stats = pool.getStats();
+            Assertions.assertEquals(1, stats.validationFailures());
+            Assertions.assertEquals(2, stats.created());
+            Assertions.assertEquals(1, stats.open());
+        }
+    }
+
+    @Test
+    @DisplayName("Connections Held Too Long Are Reported")
+    public void leaks() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", settings(0, 2, 500, 30))) {
+            Connection leaked = pool.getConnection();
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getStats().leaks() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(1, pool.getStats().leaks());
+            leaked.close();
+
+            Thread.sleep(100);
+            Assertions.assertEquals(1, pool.getStats().leaks(), "The same connection was reported twice");
+        }
+        Assertions.assertEquals(0, ConnectionPool.Settings.defaults().leakThresholdMs(), "Leak checks should be opt-in");
+    }
+
+    @Test
+    @DisplayName("Every Acquisition Lands In The Latency Histogram")
+    public void latency() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", settings(2, 4, 500, 0))) {
+            for (int i = 0; i < 25; i++) {
+                pool.getConnection().close();
+            }
+            ConnectionPool.Stats stats = pool.getStats();
+            long total = 0;
+            for (long count : stats.acquireLatency()) {
+                total += count;
+            }
+            Assertions.assertEquals(25, total);
+            Assertions.assertTrue(stats.latencyPercentileMicros(0.5) <= stats.latencyPercentileMicros(0.99));
+        }
+
+        ConnectionPool closed = new ConnectionPool(url, "sa", "", settings(1, 1, 500, 0));
+        closed.close();
+        Assertions.assertThrows(SQLException.class, closed::getConnection);
+    }
+
+    @Test
+    @DisplayName("Statements Lead Back To The Pooled Connection And Close With It")
+    public void statements() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool(url, "sa", "", settings(1, 1, 500, 0))) {
+            Connection conn = pool.getConnection();
+            Statement forgotten = conn.createStatement();
+            PreparedStatement query = conn.prepareStatement("SELECT 1");
+            ResultSet rs = query.executeQuery();
+            Assertions.assertSame(conn, forgotten.getConnection());
+            Assertions.assertSame(conn, query.getConnection());
+            Assertions.assertSame(query, rs.getStatement());
+            Assertions.assertSame(conn, conn.getMetaData().getConnection());
+
+            // closing through the statement must still only return it to the pool
+            rs.getStatement().getConnection().close();
+            Assertions.assertTrue(forgotten.isClosed(), "Statement left open on a pooled connection");
+            Assertions.assertTrue(query.isClosed());
+            Assertions.assertEquals(1, pool.getStats().idle());
+
+            try (Connection again = pool.getConnection(); Statement statement = again.createStatement();
+                 ResultSet one = statement.executeQuery("SELECT 1")) {
+                Assertions.assertTrue(one.next());
+                Assertions.assertEquals(1, one.getInt(1));
+            }
+            Assertions.assertEquals(1, pool.getStats().created(), "The physical connection was closed behind the pool");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dataAccess;
+
+import chess.ChessGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SqlDAOTests {
+    private static final AtomicInteger databases = new AtomicInteger();
+    private ConnectionPool pool;
+
+    @BeforeEach
+    public void freshDatabase() throws DataAccessException {
+        pool = new ConnectionPool("jdbc:h2:mem:dao" + databases.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "sa", "", ConnectionPool.Settings.defaults());
+    }
+
+    @AfterEach
+    public void closePool() {
+        pool.close();
+    }
+
+    @Test
+    @DisplayName("Users Are Unique By Name")
+    public void users() throws Exception {
+        SqlUserDAO users = new SqlUserDAO(pool);
+        Assertions.assertTrue(users.createUser(new UserData("alice", "hash", "a@example.com")));
+        Assertions.assertFalse(users.createUser(new UserData("alice", "other", "b@example.com")));
+        Assertions.assertEquals(new UserData("alice", "hash", "a@example.com"), users.getUser("alice"));
+        Assertions.assertNull(users.getUser("bob"));
+
+        // tables already existing is fine
+        users = new SqlUserDAO(pool);
+        users.clear();
+        Assertions.assertNull(users.getUser("alice"));
+    }
+
+    @Test
+    @DisplayName("Sessions Can Be Looked Up And Ended Once")
+    public void sessions() throws Exception {
+        SqlAuthDAO auth = new SqlAuthDAO(pool);
+        auth.createAuth(new AuthData("token-1", "alice"));
+        Assertions.assertEquals(new AuthData("token-1", "alice"), auth.getAuth("token-1"));
+        Assertions.assertTrue(auth.deleteAuth("token-1"));
+        Assertions.assertFalse(auth.deleteAuth("token-1"));
+        Assertions.assertNull(auth.getAuth("token-1"));
+    }
+
+    @Test
+    @DisplayName("Games Get Fresh IDs And Each Seat Is Claimed Once")
+    public void games() throws Exception {
+        SqlGameDAO games = new SqlGameDAO(pool);
+        int first = games.createGame("first");
+        int second = games.createGame("second");
+        Assertions.assertNotEquals(first, second);
+
+        Assertions.assertTrue(games.claimSeat(first, ChessGame.TeamColor.WHITE, "alice"));
+        Assertions.assertFalse(games.claimSeat(first, ChessGame.TeamColor.WHITE, "bob"));
+        Assertions.assertTrue(games.claimSeat(first, ChessGame.TeamColor.BLACK, "bob"));
+        Assertions.assertFalse(games.claimSeat(999, ChessGame.TeamColor.BLACK, "bob"));
+
+        Assertions.assertEquals(new GameData(first, "alice", "bob", "first"), games.getGame(first));
+        Assertions.assertEquals(List.of(new GameData(first, "alice", "bob", "first"),
+                new GameData(second, null, null, "second")), List.copyOf(games.listGames()));
+        Assertions.assertEquals(0, pool.getStats().inUse(), "A DAO kept a connection");
+
+        games.clear();
+        Assertions.assertTrue(games.listGames().isEmpty());
+        Assertions.assertNull(games.getGame(first));
+    }
+}
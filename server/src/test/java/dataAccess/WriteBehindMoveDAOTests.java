@@ -0,0 +1,267 @@
+package dataAccess;
+
+import model.GameSnapshot;
+import model.LoggedMove;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class WriteBehindMoveDAOTests {
+    private static final AtomicInteger databases = new AtomicInteger();
+    private JdbcDataSource database;
+
+    @BeforeEach
+    public void freshDatabase() {
+        database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:moves" + databases.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    }
+
+    private static int[] movesOf(List<LoggedMove> logged) {
+        return logged.stream().mapToInt(LoggedMove::move).toArray();
+    }
+
+    // passes calls through to the database, but lets a test hold up or fail
+    // the writer's connections
+    private static DataSource gated(DataSource target, AtomicReference<CountDownLatch> gate, AtomicBoolean failing) {
+        return gated(target, gate, failing, new AtomicReference<>());
+    }
+
+    private static DataSource gated(DataSource target, AtomicReference<CountDownLatch> gate, AtomicBoolean failing,
+                                    AtomicReference<Thread> caller) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        caller.set(Thread.currentThread());
+                        gate.get().await();
+                        if (failing.get()) {
+                            throw new SQLTransientConnectionException("database is down", "08001");
+                        }
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("Every Durability Mode Saves Moves In Ply Order")
+    public void modes() throws Exception {
+        int gameID = 1;
+        for (WriteBehindMoveDAO.Durability durability : WriteBehindMoveDAO.Durability.values()) {
+            try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(database, durability, 64, 8, 5)) {
+                moves.appendMove(gameID, 1, 0x1234);
+                moves.appendMove(gameID, 0, 0x0C1C);
+                moves.appendMove(gameID, 2, 0x7FFF);
+                moves.appendMove(gameID + 1, 0, 5);
+
+                Assertions.assertArrayEquals(new int[]{0x0C1C, 0x1234, 0x7FFF}, movesOf(moves.getMoves(gameID)), durability.name());
+                Assertions.assertArrayEquals(new int[]{5}, movesOf(moves.getMoves(gameID + 1)));
+                Assertions.assertEquals(0, moves.getStats().queued());
+            }
+            gameID += 2;
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent Moves Share Commits")
+    public void groupCommit() throws Exception {
+        try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(database, WriteBehindMoveDAO.Durability.GROUP_COMMIT,
+                256, 64, 20)) {
+            List<Thread> players = new ArrayList<>();
+            for (int game = 1; game <= 16; game++) {
+                int gameID = game;
+                players.add(Thread.ofVirtual().start(() -> {
+                    try {
+                        for (int ply = 0; ply < 10; ply++) {
+                            moves.appendMove(gameID, ply, ply);
+                        }
+                    } catch (DataAccessException e) {
+                        throw new RuntimeException(e);
+                    }
+                }));
+            }
+            for (Thread player : players) {
+                player.join();
+            }
+
+            WriteBehindMoveDAO.Stats stats = moves.getStats();
+            Assertions.assertEquals(160, stats.committed());
+            Assertions.assertTrue(stats.batches() < 160, "Every move got its own commit");
+            Assertions.assertTrue(stats.largestBatch() > 1);
+            Assertions.assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, movesOf(moves.getMoves(7)));
+        }
+    }
+
+    @Test
+    @DisplayName("Full Queue Holds Back New Moves")
+    public void backpressure() throws Exception {
+        AtomicReference<CountDownLatch> gate = new AtomicReference<>(new CountDownLatch(0));
+        AtomicBoolean failing = new AtomicBoolean();
+        try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(gated(database, gate, failing),
+                WriteBehindMoveDAO.Durability.WRITE_BEHIND, 4, 2, 1)) {
+            CountDownLatch stuck = new CountDownLatch(1);
+            gate.set(stuck);
+            for (int ply = 0; ply < 4; ply++) {
+                moves.appendMove(1, ply, ply);
+            }
+            // moves stay queued until they are committed, so the queue is now full
+            Thread fifth = Thread.ofVirtual().start(() -> {
+                try {
+                    moves.appendMove(1, 4, 4);
+                } catch (DataAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            fifth.join(200);
+            Assertions.assertTrue(fifth.isAlive(), "Append did not wait for room");
+
+            stuck.countDown();
+            fifth.join();
+            moves.flush();
+            WriteBehindMoveDAO.Stats stats = moves.getStats();
+            Assertions.assertEquals(5, stats.committed());
+            Assertions.assertTrue(stats.blockedAppends() >= 1);
+            Assertions.assertTrue(stats.blockedNanos() > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Failed Writes Are Tried Again")
+    public void retries() throws Exception {
+        AtomicReference<CountDownLatch> gate = new AtomicReference<>(new CountDownLatch(0));
+        AtomicBoolean failing = new AtomicBoolean();
+        try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(gated(database, gate, failing),
+                WriteBehindMoveDAO.Durability.WRITE_THROUGH, 16, 4, 5)) {
+            failing.set(true);
+            Assertions.assertThrows(DataAccessException.class, () -> moves.appendMove(3, 0, 42));
+            Assertions.assertEquals(1, moves.getStats().queued());
+            Assertions.assertTrue(moves.getStats().failedFlushes() >= 1);
+
+            failing.set(false);
+            Assertions.assertArrayEquals(new int[]{42}, movesOf(moves.getMoves(3)));
+        }
+
+        WriteBehindMoveDAO closed = new WriteBehindMoveDAO(database, WriteBehindMoveDAO.Durability.WRITE_BEHIND, 4, 2, 5);
+        closed.close();
+        Assertions.assertThrows(DataAccessException.class, () -> closed.appendMove(1, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Snapshots And The Moves After Them")
+    public void snapshots() throws Exception {
+        try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(database, WriteBehindMoveDAO.Durability.WRITE_BEHIND, 64, 8, 5)) {
+            Assertions.assertNull(moves.getLatestSnapshot(1));
+            byte start[] = new byte[29];
+            byte later[] = new byte[29];
+            later[0] = 7;
+            moves.saveSnapshot(new GameSnapshot(1, 0, start));
+            moves.saveSnapshot(new GameSnapshot(1, 4, later));
+            moves.saveSnapshot(new GameSnapshot(2, 8, start));
+            for (int ply = 0; ply < 6; ply++) {
+                moves.appendMove(1, ply, 100 + ply);
+            }
+
+            GameSnapshot newest = moves.getLatestSnapshot(1);
+            Assertions.assertEquals(4, newest.ply());
+            Assertions.assertArrayEquals(later, newest.position());
+            Assertions.assertEquals(List.of(new LoggedMove(4, 104), new LoggedMove(5, 105)), moves.getMoves(1, newest.ply()));
+
+            moves.clear();
+            Assertions.assertNull(moves.getLatestSnapshot(1));
+            Assertions.assertEquals(0, moves.getMoves(1).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Repeated And Bad Moves Do Not Hold Up Other Games")
+    public void badRecords() throws Exception {
+        try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(database, WriteBehindMoveDAO.Durability.WRITE_BEHIND, 8, 4, 5)) {
+            try (Connection conn = database.getConnection(); Statement statement = conn.createStatement()) {
+                statement.executeUpdate("ALTER TABLE game_move ADD CONSTRAINT no_999 CHECK (move <> 999)");
+            }
+            moves.appendMove(1, 0, 5);
+            moves.appendMove(1, 0, 6);
+            moves.appendMove(1, 1, 999);
+            moves.appendMove(1, 2, 7);
+            // more than the queue holds, so these only fit if the writer moved past the bad move
+            for (int ply = 3; ply < 12; ply++) {
+                moves.appendMove(2, ply, ply);
+            }
+
+            // the first move saved for a ply is kept, and nothing after the lost one
+            Assertions.assertArrayEquals(new int[]{5}, movesOf(moves.getMoves(1)));
+            Assertions.assertEquals(9, moves.getMoves(2).size());
+            WriteBehindMoveDAO.Stats stats = moves.getStats();
+            Assertions.assertEquals(2, stats.dropped());
+            Assertions.assertEquals(13, stats.committed());
+            Assertions.assertThrows(DataAccessException.class, () -> moves.appendMove(1, 3, 8));
+
+            // a ply too big for a queued record must not wrap onto an earlier one
+            Assertions.assertThrows(IllegalArgumentException.class, () -> moves.appendMove(5, WriteBehindMoveDAO.MAX_PLY + 1, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> moves.appendMove(5, -1, 1));
+            moves.appendMove(5, WriteBehindMoveDAO.MAX_PLY, 1);
+            Assertions.assertEquals(List.of(new LoggedMove(WriteBehindMoveDAO.MAX_PLY, 1)), moves.getMoves(5));
+        }
+
+        try (WriteBehindMoveDAO moves = new WriteBehindMoveDAO(database, WriteBehindMoveDAO.Durability.WRITE_THROUGH, 8, 4, 5)) {
+            DataAccessException dropped = Assertions.assertThrows(DataAccessException.class, () -> moves.appendMove(3, 0, 999));
+            Assertions.assertTrue(dropped.getMessage().contains("dropped"), dropped.getMessage());
+            Assertions.assertThrows(DataAccessException.class, () -> moves.appendMove(3, 1, 8));
+            moves.appendMove(4, 0, 8);
+            Assertions.assertArrayEquals(new int[]{8}, movesOf(moves.getMoves(4)));
+
+            moves.clear();
+            moves.appendMove(3, 0, 8);
+            Assertions.assertArrayEquals(new int[]{8}, movesOf(moves.getMoves(3)), "Clearing should forget broken games");
+        }
+    }
+
+    @Test
+    @DisplayName("Waiting Appends Fail Once The Writer Stops")
+    public void writerStops() throws Exception {
+        AtomicReference<CountDownLatch> gate = new AtomicReference<>(new CountDownLatch(0));
+        AtomicReference<Thread> caller = new AtomicReference<>();
+        WriteBehindMoveDAO moves = new WriteBehindMoveDAO(gated(database, gate, new AtomicBoolean(), caller),
+                WriteBehindMoveDAO.Durability.GROUP_COMMIT, 8, 4, 5);
+        moves.appendMove(1, 0, 1);
+        Thread writer = caller.get();
+        Assertions.assertEquals("move-writer", writer.getName());
+
+        gate.set(new CountDownLatch(1));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiting = Thread.ofVirtual().start(() -> {
+            try {
+                moves.appendMove(1, 1, 2);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiting.join(100);
+        Assertions.assertTrue(waiting.isAlive(), "Append did not wait for its commit");
+        writer.interrupt();
+        waiting.join(5_000);
+        Assertions.assertFalse(waiting.isAlive(), "Append still waiting after the writer stopped");
+        Assertions.assertInstanceOf(DataAccessException.class, failure.get());
+
+        Assertions.assertThrows(DataAccessException.class, () -> moves.appendMove(1, 2, 3));
+        Assertions.assertThrows(DataAccessException.class, moves::close, "Unsaved move was not reported");
+    }
+}
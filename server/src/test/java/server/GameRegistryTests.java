@@ -0,0 +1,104 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GameRegistryTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+
+    @Test
+    @DisplayName("Games Are Kept Apart And Handed Out As Copies")
+    public void copies() throws InvalidMoveException {
+        GameRegistry registry = new GameRegistry(4);
+        int first = registry.createGame();
+        int second = registry.createGame();
+        Assertions.assertNotEquals(first, second);
+
+        ChessGame after = registry.makeMove(first, move(2, 5, 4, 5));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, after.getTeamTurn());
+        Assertions.assertEquals(after, registry.getGame(first));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, registry.getGame(second).getTeamTurn());
+
+        after.getBoard().resetBoard();
+        Assertions.assertNotEquals(after, registry.getGame(first), "Changing a copy reached the live game");
+
+        Assertions.assertThrows(InvalidMoveException.class, () -> registry.makeMove(first, move(2, 4, 4, 4)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.makeMove(99, move(2, 4, 4, 4)));
+        Assertions.assertNull(registry.getGame(99));
+
+        Assertions.assertTrue(registry.removeGame(first));
+        Assertions.assertFalse(registry.removeGame(first));
+        Assertions.assertEquals(1, registry.size());
+    }
+
+    @Test
+    @DisplayName("Stored IDs Are Not Handed Out Again")
+    public void putGame() {
+        GameRegistry registry = new GameRegistry(3);
+        Assertions.assertEquals(4, registry.getShardCount());
+
+        registry.putGame(40, new ChessGame());
+        Assertions.assertEquals(41, registry.createGame());
+    }
+
+    @Test
+    @DisplayName("Many Games Played At Once")
+    public void concurrentGames() throws Exception {
+        GameRegistry registry = new GameRegistry(8);
+        int games = 2000;
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            ids.add(registry.createGame());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int id : ids) {
+                done.add(pool.submit(() -> {
+                    // knights out and back, twice
+                    for (int round = 0; round < 2; round++) {
+                        registry.makeMove(id, move(1, 7, 3, 6));
+                        registry.makeMove(id, move(8, 7, 6, 6));
+                        registry.makeMove(id, move(3, 6, 1, 7));
+                        registry.makeMove(id, move(6, 6, 8, 7));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int total = 0;
+        long acquisitions = 0;
+        for (GameRegistry.ShardStats stats : registry.getShardStats()) {
+            Assertions.assertEquals(games / 8, stats.games());
+            total += stats.games();
+            acquisitions += stats.acquisitions();
+            Assertions.assertTrue(stats.contended() <= stats.acquisitions());
+        }
+        Assertions.assertEquals(games, total);
+        Assertions.assertEquals(games * 9L, acquisitions);
+        for (int id : ids) {
+            Assertions.assertEquals(3, registry.withGame(id, ChessGame::getRepetitionCount));
+        }
+    }
+}
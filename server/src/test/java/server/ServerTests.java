@@ -0,0 +1,224 @@
+package server;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dataAccess.ConnectionPool;
+import dataAccess.DataAccessException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServerTests {
+    private static final Gson gson = new Gson();
+    private static Server server;
+    private static HttpClient client;
+    private static String base;
+
+    @BeforeAll
+    public static void startServer() {
+        server = new Server();
+        base = "http://localhost:" + server.run(0);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @BeforeEach
+    public void clear() throws Exception {
+        send("DELETE", "/db", null, null);
+    }
+
+    private static HttpRequest request(String method, String path, String auth, Object body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(gson.toJson(body)));
+        if (auth != null) {
+            builder.header("authorization", auth);
+        }
+        return builder.build();
+    }
+
+    private static HttpResponse<String> send(String method, String path, String auth, Object body) throws Exception {
+        return client.send(request(method, path, auth, body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonObject json(HttpResponse<String> response) {
+        return gson.fromJson(response.body(), JsonObject.class);
+    }
+
+    private static String register(String username) throws Exception {
+        HttpResponse<String> response = send("POST", "/user", null,
+                new JsonObjectBuilder().add("username", username).add("password", "pw").add("email", "e").build());
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        return json(response).get("authToken").getAsString();
+    }
+
+    // small helper so request bodies read like the JSON they become
+    private static final class JsonObjectBuilder {
+        private final JsonObject object = new JsonObject();
+
+        JsonObjectBuilder add(String name, String value) {
+            object.addProperty(name, value);
+            return this;
+        }
+
+        JsonObjectBuilder add(String name, Number value) {
+            object.addProperty(name, value);
+            return this;
+        }
+
+        JsonObjectBuilder add(String name, JsonObject value) {
+            object.add(name, value);
+            return this;
+        }
+
+        JsonObject build() {
+            return object;
+        }
+    }
+
+    @Test
+    @DisplayName("Register, Log Out And Log Back In")
+    public void sessions() throws Exception {
+        String auth = register("alice");
+
+        HttpResponse<String> again = send("POST", "/user", null,
+                new JsonObjectBuilder().add("username", "alice").add("password", "x").add("email", "e").build());
+        Assertions.assertEquals(403, again.statusCode());
+        Assertions.assertEquals("Error: already taken", json(again).get("message").getAsString());
+
+        Assertions.assertEquals(200, send("DELETE", "/session", auth, null).statusCode());
+        Assertions.assertEquals(401, send("DELETE", "/session", auth, null).statusCode());
+
+        JsonObject wrong = new JsonObjectBuilder().add("username", "alice").add("password", "nope").build();
+        Assertions.assertEquals(401, send("POST", "/session", null, wrong).statusCode());
+        JsonObject right = new JsonObjectBuilder().add("username", "alice").add("password", "pw").build();
+        HttpResponse<String> login = send("POST", "/session", null, right);
+        Assertions.assertEquals(200, login.statusCode());
+        Assertions.assertEquals("alice", json(login).get("username").getAsString());
+
+        Assertions.assertEquals(400, send("POST", "/user", null, new JsonObjectBuilder().add("username", "bob").build()).statusCode());
+    }
+
+    @Test
+    @DisplayName("Create, Join And List Games")
+    public void games() throws Exception {
+        String alice = register("alice");
+        String bob = register("bob");
+
+        Assertions.assertEquals(401, send("POST", "/game", "bogus", new JsonObjectBuilder().add("gameName", "g").build()).statusCode());
+        HttpResponse<String> created = send("POST", "/game", alice, new JsonObjectBuilder().add("gameName", "g").build());
+        Assertions.assertEquals(200, created.statusCode());
+        int gameID = json(created).get("gameID").getAsInt();
+        Assertions.assertNotNull(server.getGameRegistry().getGame(gameID));
+
+        JsonObject white = new JsonObjectBuilder().add("playerColor", "WHITE").add("gameID", gameID).build();
+        Assertions.assertEquals(200, send("PUT", "/game", alice, white).statusCode());
+        Assertions.assertEquals(403, send("PUT", "/game", bob, white).statusCode());
+        Assertions.assertEquals(200, send("PUT", "/game", bob, new JsonObjectBuilder().add("gameID", gameID).build()).statusCode(),
+                "Watching should always be allowed");
+        Assertions.assertEquals(400, send("PUT", "/game", bob, new JsonObjectBuilder().add("playerColor", "BLACK").add("gameID", 999).build()).statusCode());
+
+        HttpResponse<String> list = send("GET", "/game", bob, null);
+        Assertions.assertEquals(200, list.statusCode());
+        JsonObject game = json(list).getAsJsonArray("games").get(0).getAsJsonObject();
+        Assertions.assertEquals("alice", game.get("whiteUsername").getAsString());
+        Assertions.assertEquals("g", game.get("gameName").getAsString());
+        Assertions.assertFalse(game.has("blackUsername"));
+    }
+
+    private static JsonObject move(int gameID, int fromRow, int fromCol, int toRow, int toCol) {
+        return new JsonObjectBuilder().add("gameID", gameID)
+                .add("start", new JsonObjectBuilder().add("row", fromRow).add("col", fromCol).build())
+                .add("end", new JsonObjectBuilder().add("row", toRow).add("col", toCol).build()).build();
+    }
+
+    @Test
+    @DisplayName("Seated Players Make Moves")
+    public void moves() throws Exception {
+        String alice = register("alice");
+        String bob = register("bob");
+        int gameID = json(send("POST", "/game", alice, new JsonObjectBuilder().add("gameName", "g").build()))
+                .get("gameID").getAsInt();
+        send("PUT", "/game", alice, new JsonObjectBuilder().add("playerColor", "WHITE").add("gameID", gameID).build());
+        send("PUT", "/game", bob, new JsonObjectBuilder().add("playerColor", "BLACK").add("gameID", gameID).build());
+
+        Assertions.assertEquals(401, send("POST", "/game/move", "bogus", move(gameID, 2, 5, 4, 5)).statusCode());
+        Assertions.assertEquals(400, send("POST", "/game/move", bob, move(gameID, 7, 5, 5, 5)).statusCode(),
+                "Black moved first");
+        Assertions.assertEquals(400, send("POST", "/game/move", alice, move(gameID, 2, 5, 9, 5)).statusCode());
+
+        HttpResponse<String> played = send("POST", "/game/move", alice, move(gameID, 2, 5, 4, 5));
+        Assertions.assertEquals(200, played.statusCode(), played.body());
+        Assertions.assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1",
+                json(played).get("fen").getAsString());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, server.getGameRegistry().getGame(gameID).getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Requests Run On Virtual Threads In Parallel")
+    public void parallelRequests() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> pending = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            JsonObject body = new JsonObjectBuilder().add("username", "user" + i).add("password", "pw").add("email", "e").build();
+            pending.add(client.sendAsync(request("POST", "/user", null, body), HttpResponse.BodyHandlers.ofString()));
+        }
+        for (CompletableFuture<HttpResponse<String>> response : pending) {
+            Assertions.assertEquals(200, response.get().statusCode());
+        }
+
+        VirtualThreadPool pool = server.getThreadPool();
+        Assertions.assertTrue(pool.getPeakThreads() > 1);
+        Assertions.assertTrue(pool.getStartedCount() >= 32);
+        Assertions.assertEquals(0, pool.getRejectedCount());
+        Assertions.assertTrue(pool.getSaturation() < 1);
+    }
+
+    private static long moveWriters() {
+        return Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals("move-writer")).count();
+    }
+
+    @Test
+    @DisplayName("Failed Database Setup Closes What It Started")
+    public void failedSetup() throws Exception {
+        long writers = moveWriters();
+        AtomicInteger connections = new AtomicInteger();
+        // the move writer gets its connection, the first SQL DAO does not
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:server;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "",
+                ConnectionPool.Settings.defaults()) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (connections.incrementAndGet() > 1) {
+                    throw new SQLException("no more connections");
+                }
+                return super.getConnection();
+            }
+        };
+
+        Assertions.assertThrows(DataAccessException.class, () -> new Server(pool));
+        Assertions.assertEquals(0, pool.getStats().open(), "Pool was left open");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (moveWriters() > writers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(writers, moveWriters(), "Move writer thread was left running");
+    }
+}
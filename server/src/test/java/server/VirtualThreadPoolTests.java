@@ -0,0 +1,70 @@
+package server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+public class VirtualThreadPoolTests {
+
+    @Test
+    @DisplayName("Busy Pool Reports Saturation And Turns Work Away")
+    public void saturation() throws Exception {
+        VirtualThreadPool pool = new VirtualThreadPool(10);
+        Assertions.assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> {
+        }), "A pool that was never started ran a task");
+        pool.start();
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            pool.execute(() -> {
+                Assertions.assertTrue(Thread.currentThread().isVirtual());
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        running.await();
+
+        Assertions.assertEquals(10, pool.getThreads());
+        Assertions.assertEquals(1.0, pool.getSaturation());
+        Assertions.assertTrue(pool.isLowOnThreads());
+        Assertions.assertThrows(RejectedExecutionException.class, () -> pool.execute(() -> {
+        }));
+        Assertions.assertEquals(2, pool.getRejectedCount(), "Both the stopped and the full pool should count");
+
+        release.countDown();
+        while (pool.getThreads() > 0) {
+            Thread.sleep(1);
+        }
+        Assertions.assertFalse(pool.isLowOnThreads());
+        Assertions.assertEquals(10, pool.getPeakThreads());
+        Assertions.assertEquals(10, pool.getStartedCount());
+    }
+
+    @Test
+    @DisplayName("Join Returns Once The Pool Stops")
+    public void join() throws Exception {
+        VirtualThreadPool pool = new VirtualThreadPool();
+        pool.start();
+        Thread waiter = Thread.ofPlatform().start(() -> {
+            try {
+                pool.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(20);
+        Assertions.assertTrue(waiter.isAlive());
+
+        pool.stop();
+        waiter.join(5000);
+        Assertions.assertFalse(waiter.isAlive());
+    }
+}
@@ -0,0 +1,173 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.PackedMove;
+import dataAccess.MemoryGameDAO;
+import dataAccess.DataAccessException;
+import dataAccess.MemoryMoveDAO;
+import model.LoggedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.GameRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GameServiceTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+
+    @Test
+    @DisplayName("Seated Players Move In Turn And Every Move Is Recorded")
+    public void makeMove() throws Exception {
+        MemoryMoveDAO moves = new MemoryMoveDAO();
+        GameRegistry registry = new GameRegistry(4);
+        GameService service = new GameService(new MemoryGameDAO(), moves, registry);
+        int gameID = service.createGame("g");
+        service.joinGame("alice", ChessGame.TeamColor.WHITE, gameID);
+        service.joinGame("bob", ChessGame.TeamColor.BLACK, gameID);
+
+        ServiceException notTurn = Assertions.assertThrows(ServiceException.class,
+                () -> service.makeMove("bob", gameID, move(7, 5, 5, 5)));
+        Assertions.assertEquals(400, notTurn.getStatusCode());
+        ServiceException watcher = Assertions.assertThrows(ServiceException.class,
+                () -> service.makeMove("carol", gameID, move(2, 5, 4, 5)));
+        Assertions.assertEquals(403, watcher.getStatusCode());
+
+        service.makeMove("alice", gameID, move(2, 5, 4, 5));
+        ChessGame after = service.makeMove("bob", gameID, move(7, 5, 5, 5));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, after.getTeamTurn());
+        Assertions.assertEquals(after, registry.getGame(gameID));
+
+        List<LoggedMove> recorded = moves.getMoves(gameID);
+        Assertions.assertEquals(2, recorded.size());
+        Assertions.assertEquals(new LoggedMove(0, PackedMove.fromChessMove(move(2, 5, 4, 5))), recorded.get(0));
+        Assertions.assertEquals(new LoggedMove(1, PackedMove.fromChessMove(move(7, 5, 5, 5))), recorded.get(1));
+    }
+
+    @Test
+    @DisplayName("Games Load From The Newest Snapshot And The Moves After It")
+    public void reload() throws Exception {
+        MemoryMoveDAO moves = new MemoryMoveDAO();
+        GameRegistry registry = new GameRegistry(4);
+        GameService service = new GameService(new MemoryGameDAO(), moves, registry);
+        int gameID = service.createGame("g");
+        service.joinGame("alice", ChessGame.TeamColor.WHITE, gameID);
+        service.joinGame("alice", ChessGame.TeamColor.BLACK, gameID);
+
+        Random random = new Random(24);
+        ChessGame game = service.getGame(gameID);
+        for (int ply = 0; ply < 75; ply++) {
+            List<ChessMove> legal = new ArrayList<>();
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPosition from = ChessPosition.of(row, col);
+                    ChessPiece piece = game.getBoard().getPiece(from);
+                    if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                        legal.addAll(game.validMoves(from));
+                    }
+                }
+            }
+            if (legal.isEmpty()) {
+                break;
+            }
+            game = service.makeMove("alice", gameID, legal.get(random.nextInt(legal.size())));
+        }
+
+        int played = moves.getMoves(gameID).size();
+        Assertions.assertTrue(played > GameService.SNAPSHOT_INTERVAL);
+        Assertions.assertEquals(played / GameService.SNAPSHOT_INTERVAL * GameService.SNAPSHOT_INTERVAL,
+                moves.getLatestSnapshot(gameID).ply());
+
+        registry.removeGame(gameID);
+        ChessGame loaded = service.getGame(gameID);
+        Assertions.assertEquals(game, loaded);
+        Assertions.assertEquals(game.getFullmoveNumber(), loaded.getFullmoveNumber());
+        Assertions.assertEquals(game.getHalfmoveClock(), loaded.getHalfmoveClock());
+        Assertions.assertNotNull(registry.getGame(gameID), "Loaded game was not made live again");
+
+        Assertions.assertThrows(ServiceException.class, () -> service.getGame(999));
+    }
+
+    @Test
+    @DisplayName("Moves Load A Game That Is Not Live")
+    public void moveAfterRestart() throws Exception {
+        MemoryGameDAO games = new MemoryGameDAO();
+        MemoryMoveDAO moves = new MemoryMoveDAO();
+        GameService before = new GameService(games, moves, new GameRegistry(4));
+        int gameID = before.createGame("g");
+        before.joinGame("alice", ChessGame.TeamColor.WHITE, gameID);
+        before.joinGame("bob", ChessGame.TeamColor.BLACK, gameID);
+        before.makeMove("alice", gameID, move(2, 5, 4, 5));
+
+        // a new service over the same storage, as after a restart
+        GameRegistry registry = new GameRegistry(4);
+        GameService after = new GameService(games, moves, registry);
+        ChessGame game = after.makeMove("bob", gameID, move(7, 5, 5, 5));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+        Assertions.assertNotNull(game.getBoard().getPiece(ChessPosition.of(4, 5)), "The move before the restart was lost");
+        Assertions.assertEquals(game, registry.getGame(gameID));
+        Assertions.assertEquals(2, moves.getMoves(gameID).size());
+
+        registry.removeGame(gameID);
+        ServiceException notTurn = Assertions.assertThrows(ServiceException.class,
+                () -> after.makeMove("bob", gameID, move(7, 4, 5, 4)));
+        Assertions.assertEquals(400, notTurn.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("A Gap In The Move Log Fails The Load")
+    public void missingPly() throws Exception {
+        MemoryMoveDAO moves = new MemoryMoveDAO();
+        GameRegistry registry = new GameRegistry(4);
+        GameService service = new GameService(new MemoryGameDAO(), moves, registry);
+        int gameID = service.createGame("g");
+        service.joinGame("alice", ChessGame.TeamColor.WHITE, gameID);
+        service.joinGame("bob", ChessGame.TeamColor.BLACK, gameID);
+        service.makeMove("alice", gameID, move(2, 5, 4, 5));
+        // ply 1 never made it to the log
+        moves.appendMove(gameID, 2, PackedMove.fromChessMove(move(2, 4, 4, 4)));
+
+        registry.removeGame(gameID);
+        DataAccessException gap = Assertions.assertThrows(DataAccessException.class, () -> service.getGame(gameID));
+        Assertions.assertTrue(gap.getMessage().contains("missing ply 1"), gap.getMessage());
+        Assertions.assertNull(registry.getGame(gameID), "A game with a broken log was made live");
+    }
+
+    @Test
+    @DisplayName("A Move That Cannot Be Saved Is Taken Back")
+    public void failedAppend() throws Exception {
+        AtomicBoolean failing = new AtomicBoolean();
+        MemoryMoveDAO moves = new MemoryMoveDAO() {
+            @Override
+            public void appendMove(int gameID, int ply, int move) {
+                if (failing.get()) {
+                    throw new IllegalStateException("log is down");
+                }
+                super.appendMove(gameID, ply, move);
+            }
+        };
+        GameRegistry registry = new GameRegistry(4);
+        GameService service = new GameService(new MemoryGameDAO(), moves, registry);
+        int gameID = service.createGame("g");
+        service.joinGame("alice", ChessGame.TeamColor.WHITE, gameID);
+        ChessGame before = registry.getGame(gameID);
+
+        failing.set(true);
+        Assertions.assertThrows(IllegalStateException.class, () -> service.makeMove("alice", gameID, move(2, 5, 4, 5)));
+        Assertions.assertEquals(before, registry.getGame(gameID), "Live game kept a move its log does not have");
+        Assertions.assertEquals(0, registry.getGame(gameID).getUndoDepth());
+
+        failing.set(false);
+        service.makeMove("alice", gameID, move(2, 5, 4, 5));
+        Assertions.assertEquals(1, moves.getMoves(gameID).size());
+    }
+}
@@ -0,0 +1,130 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed-size binary form of a position for storage and the wire, always
+ * {@link #SIZE} bytes:
+ * <ul>
+ * <li>bytes 0-7: mask of occupied squares (see {@link Bitboards}), big-endian</li>
+ * <li>bytes 8-23: the {@link ChessPiece#code} of each occupied square, lowest
+ * square first, 4 bits each, high half of a byte first, zero filled</li>
+ * <li>byte 24: bit 0 set when black is to move, bits 1-4 castling rights</li>
+ * <li>byte 25: en passant target square, 0 for none</li>
+ * <li>bytes 26-27: halfmove clock</li>
+ * <li>bytes 28-29: fullmove number, unsigned, capped at 65535</li>
+ * </ul>
+ * A position with more than 32 pieces (only possible on hand-built boards)
+ * does not fit and cannot be encoded.
+ */
+public final class BinaryPosition {
+    public static final int SIZE = 30;
+
+    private static final int MAX_PIECES = 32;
+
+    private BinaryPosition() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        ByteBuffer out = ByteBuffer.allocate(SIZE);
+        write(game, out);
+        return out.array();
+    }
+
+    public static ChessGame decode(byte data[]) {
+        if (data.length != SIZE) {
+            throw new IllegalArgumentException("Encoded position must be " + SIZE + " bytes, got " + data.length);
+        }
+        return read(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Writes {@link #SIZE} bytes at the buffer's position
+     *
+     * @throws IllegalArgumentException if the board has more than 32 pieces
+     */
+    public static void write(ChessGame game, ByteBuffer out) {
+        ChessBoard board = game.getBoard();
+        long occupied = board.occupied();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Only boards with at most " + MAX_PIECES + " pieces can be encoded");
+        }
+        out.putLong(occupied);
+        int written = 0;
+        int pending = -1;
+        for (long left = occupied; left != 0; left &= left - 1) {
+            int code = board.codeAt(Long.numberOfTrailingZeros(left));
+            if (pending < 0) {
+                pending = code;
+            } else {
+                out.put((byte) (pending << 4 | code));
+                written++;
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) (pending << 4));
+            written++;
+        }
+        for (; written < MAX_PIECES / 2; written++) {
+            out.put((byte) 0);
+        }
+        int state = game.state;
+        out.put((byte) ((game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | GameState.castling(state) << 1));
+        out.put((byte) GameState.enPassant(state));
+        out.putShort((short) GameState.halfmove(state));
+        out.putShort((short) Math.min(game.getFullmoveNumber(), 0xFFFF));
+    }
+
+    /**
+     * Reads {@link #SIZE} bytes from the buffer's position
+     *
+     * @return a new game in the encoded position
+     * @throws IllegalArgumentException if the bytes are not a valid encoding
+     */
+    public static ChessGame read(ByteBuffer in) {
+        if (in.remaining() < SIZE) {
+            throw new IllegalArgumentException("Encoded position needs " + SIZE + " bytes, only " + in.remaining() + " left");
+        }
+        long occupied = in.getLong();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Encoded position has more than " + MAX_PIECES + " pieces");
+        }
+        ChessBoard board = new ChessBoard();
+        int start = in.position();
+        int index = 0;
+        for (long left = occupied; left != 0; left &= left - 1) {
+            int packed = in.get(start + index / 2);
+            int code = (index & 1) == 0 ? (packed >>> 4) & 15 : packed & 15;
+            if (code < 1 || code > Bitboards.PIECE_KINDS) {
+                throw new IllegalArgumentException("Bad piece code " + code + " in encoded position");
+            }
+            board.setSquare(Long.numberOfTrailingZeros(left), code);
+            index++;
+        }
+        in.position(start + MAX_PIECES / 2);
+
+        int flags = in.get() & 0xFF;
+        int enPassant = in.get() & 0xFF;
+        int halfmove = in.getShort() & 0xFFFF;
+        int fullmove = in.getShort() & 0xFFFF;
+
+        ChessGame.TeamColor turn = (flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        if (enPassant != 0) {
+            if (!GameState.isEnPassantTarget(board, turn, enPassant)) {
+                throw new IllegalArgumentException("Bad en passant square " + enPassant + " in encoded position");
+            }
+            if (!GameState.isCapturable(board, turn, enPassant)) {
+                enPassant = 0;
+            }
+        }
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(turn);
+        game.state = GameState.of((flags >>> 1) & GameState.CASTLING_MASK & GameState.castlingRightsOf(board),
+                enPassant, halfmove);
+        game.fullmove = Math.max(1, fullmove);
+        return game;
+    }
+}
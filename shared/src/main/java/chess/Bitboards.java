@@ -0,0 +1,93 @@
+package chess;
+
+/**
+ * Helpers for the 64-bit board masks kept by {@link ChessBoard}.
+ * <p>
+ * Squares are numbered 0-63 with bit 0 being row 1, column 1 and bit 63
+ * being row 8, column 8, so square = (row - 1) * 8 + (column - 1).
+ */
+final class Bitboards {
+    static final int PIECE_KINDS = 12;
+
+    static final int BISHOP_DIRECTIONS[][] = {{1, -1}, {1, 1}, {-1, -1}, {-1, 1}};
+    static final int ROOK_DIRECTIONS[][] = {{1, 0}, {0, 1}, {0, -1}, {-1, 0}};
+
+    private Bitboards() {
+    }
+
+    static int square(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    /**
+     * @return the 1-based row of a square
+     */
+    static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @return the 1-based column of a square
+     */
+    static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * @return the slot of a colored piece type in {@link ChessBoard}'s piece masks
+     */
+    static int index(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    static int index(ChessPiece piece) {
+        return index(piece.getTeamColor(), piece.getPieceType());
+    }
+
+    /**
+     * Walks each direction from a square until it leaves the board or hits an
+     * occupied square. The blocking square is included in the result.
+     *
+     * @return mask of every square reached
+     */
+    static long slidingAttacks(int square, long occupied, int directions[][]) {
+        long attacks = 0;
+        for (int[] dir : directions) {
+            int y = (square >>> 3) + dir[0];
+            int x = (square & 7) + dir[1];
+            while (y >= 0 && y < 8 && x >= 0 && x < 8) {
+                long mask = bit(y * 8 + x);
+                attacks |= mask;
+                if ((occupied & mask) != 0) {
+                    break;
+                }
+                y += dir[0];
+                x += dir[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * @return mask of the squares reached by stepping once by each offset
+     */
+    static long stepAttacks(int square, int offsets[][]) {
+        long attacks = 0;
+        for (int[] off : offsets) {
+            int y = (square >>> 3) + off[0];
+            int x = (square & 7) + off[1];
+            if (y >= 0 && y < 8 && x >= 0 && x < 8) {
+                attacks |= bit(y * 8 + x);
+            }
+        }
+        return attacks;
+    }
+}
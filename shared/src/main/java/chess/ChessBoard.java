@@ -1,5 +1,7 @@
 package chess;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -9,27 +11,113 @@ import java.util.Arrays;
  * signature of the existing methods.
  */
 public class ChessBoard {
-    private ChessPiece board[][] = new ChessPiece[8][8];
+    /**
+     * Length of {@link #toString()}: a leading newline, then eight rows of
+     * eight five-character cells and a newline
+     */
+    public static final int RENDERED_LENGTH = 1 + 8 * (8 * 5 + 1);
+
+    private static final String LETTERS = "KQBNRPkqbnrp";
+
+    // one ChessPiece.code per square, 0 for empty
+    private final byte squares[] = new byte[64];
+    // bitboard view of the same pieces, one mask per colored piece type
+    private final long pieces[] = new long[Bitboards.PIECE_KINDS];
+    private final long colors[] = new long[2];
+    private long occupied;
+    private long key;
+    // running sums for the tapered evaluation, see Evaluation
+    private int midgame;
+    private int endgame;
+    private int phase;
+    // toString result, dropped by every change to the board
+    private String rendered;
 
     public ChessBoard() {
         
     }
 
+    /**
+     * Makes a copy of another board
+     */
+    public ChessBoard(ChessBoard other) {
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.colors, 0, colors, 0, colors.length);
+        occupied = other.occupied;
+        key = other.key;
+        midgame = other.midgame;
+        endgame = other.endgame;
+        phase = other.phase;
+        rendered = other.rendered;
+    }
+
+    /**
+     * The text is built once into a single array and then reused until the
+     * board changes
+     */
     @Override
     public String toString() {
-        String ret = "\n";
-        for (int y = 7; y >= 0; y--){
-            for (int x = 0; x < 8; x++){
-                if (board[y][x] != null){
-                    ret += "| " + board[y][x].toString() + " |";
-                } else {
-                    ret += "|   |";
+        String text = rendered;
+        if (text == null) {
+            char out[] = new char[RENDERED_LENGTH];
+            int at = 0;
+            out[at++] = '\n';
+            for (int y = 7; y >= 0; y--) {
+                for (int x = 0; x < 8; x++) {
+                    out[at++] = '|';
+                    out[at++] = ' ';
+                    out[at++] = symbolAt(y * 8 + x);
+                    out[at++] = ' ';
+                    out[at++] = '|';
                 }
+                out[at++] = '\n';
+            }
+            text = new String(out);
+            rendered = text;
+        }
+        return text;
+    }
+
+    /**
+     * Writes the same text as {@link #toString()} to any character sink,
+     * cell by cell unless the text is already built
+     */
+    public void render(Appendable out) throws IOException {
+        String text = rendered;
+        if (text != null) {
+            out.append(text);
+            return;
+        }
+        out.append('\n');
+        for (int y = 7; y >= 0; y--) {
+            for (int x = 0; x < 8; x++) {
+                out.append('|').append(' ').append(symbolAt(y * 8 + x)).append(' ').append('|');
+            }
+            out.append('\n');
+        }
+    }
 
+    /**
+     * Writes the same text as {@link #toString()} as ASCII at the buffer's
+     * position, cell by cell
+     *
+     * @param out needs {@link #RENDERED_LENGTH} bytes of room
+     */
+    public void render(ByteBuffer out) {
+        out.put((byte) '\n');
+        for (int y = 7; y >= 0; y--) {
+            for (int x = 0; x < 8; x++) {
+                out.put((byte) '|').put((byte) ' ').put((byte) symbolAt(y * 8 + x)).put((byte) ' ').put((byte) '|');
             }
-            ret += "\n";
+            out.put((byte) '\n');
         }
-        return ret;
+    }
+
+    // the letter shown in a square's cell, a space if it is empty
+    private char symbolAt(int square) {
+        int code = squares[square];
+        return code != 0 ? LETTERS.charAt(code - 1) : ' ';
     }
 
     @Override
@@ -37,12 +125,29 @@ public class ChessBoard {
         if(this==o) return true;
         if(o==null || getClass()!=o.getClass()) return false;
         ChessBoard that=(ChessBoard) o;
-        return this.hashCode() == that.hashCode();
+        return key == that.key && Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return this.toString().hashCode();
+        return Long.hashCode(key);
+    }
+
+    /**
+     * @return the Zobrist key of the pieces on this board, kept up to date by
+     * every change to the board
+     */
+    public long getZobristKey() {
+        return key;
+    }
+
+    /**
+     * @return the material and piece-square score of this board in centipawns,
+     * positive when white is better. The underlying sums are kept up to date
+     * by every change to the board, so this costs the same on any board.
+     */
+    public int getEvaluation() {
+        return Evaluation.taper(midgame, endgame, phase);
     }
 
     /**
@@ -52,7 +157,42 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        setSquare(Bitboards.square(position), piece);
+    }
+
+    void setSquare(int square, ChessPiece piece) {
+        setSquare(square, ChessPiece.code(piece));
+    }
+
+    /**
+     * Puts the piece with the given {@link ChessPiece#code} on a square, 0 to
+     * empty it, keeping the masks, key and evaluation sums current
+     */
+    void setSquare(int square, int code) {
+        int old = squares[square];
+        long mask = Bitboards.bit(square);
+        if (old != 0) {
+            int index = old - 1;
+            pieces[index] &= ~mask;
+            key ^= Zobrist.PIECES[index][square];
+            midgame -= Evaluation.MIDGAME[index][square];
+            endgame -= Evaluation.ENDGAME[index][square];
+            phase -= Evaluation.PHASE[index];
+            colors[index / 6] &= ~mask;
+            occupied &= ~mask;
+        }
+        squares[square] = (byte) code;
+        rendered = null;
+        if (code != 0) {
+            int index = code - 1;
+            pieces[index] |= mask;
+            key ^= Zobrist.PIECES[index][square];
+            midgame += Evaluation.MIDGAME[index][square];
+            endgame += Evaluation.ENDGAME[index][square];
+            phase += Evaluation.PHASE[index];
+            colors[index / 6] |= mask;
+            occupied |= mask;
+        }
     }
 
     /**
@@ -63,7 +203,49 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return board[position.getRow()-1][position.getColumn()-1];
+        return pieceAt(Bitboards.square(position));
+    }
+
+    ChessPiece pieceAt(int square) {
+        return ChessPiece.of(squares[square]);
+    }
+
+    /**
+     * @return the {@link ChessPiece#code} of the piece on a square, 0 if empty
+     */
+    int codeAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * @return mask of every square holding a piece of the given color and type
+     */
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[Bitboards.index(color, type)];
+    }
+
+    /**
+     * @return the square of the given team's king, or -1 if it has none. The
+     * king mask is kept current by every board change, so this is a lookup
+     * rather than a scan.
+     */
+    int kingSquare(ChessGame.TeamColor color) {
+        long kings = pieces[Bitboards.index(color, ChessPiece.PieceType.KING)];
+        return kings == 0 ? -1 : Long.numberOfTrailingZeros(kings);
+    }
+
+    /**
+     * @return mask of every square holding a piece of the given color
+     */
+    long colorMask(ChessGame.TeamColor color) {
+        return colors[color.ordinal()];
+    }
+
+    /**
+     * @return mask of every occupied square
+     */
+    long occupied() {
+        return occupied;
     }
 
     /**
@@ -74,15 +256,14 @@ public class ChessBoard {
         ChessPiece.PieceType order[] = {ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT,
         ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING,
         ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK};
+        for (int i = 0; i < 64; i++) {
+            setSquare(i, 0);
+        }
         for (int i = 0; i < 8; i++) {
-            board[0][i] = new ChessPiece(ChessGame.TeamColor.WHITE, order[i]);
-            board[1][i] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-            board[2][i] = null;
-            board[3][i] = null;
-            board[4][i] = null;
-            board[5][i] = null;
-            board[6][i] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-            board[7][i] = new ChessPiece(ChessGame.TeamColor.BLACK, order[i]);
+            setSquare(i, ChessPiece.of(ChessGame.TeamColor.WHITE, order[i]));
+            setSquare(8 + i, ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            setSquare(48 + i, ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            setSquare(56 + i, ChessPiece.of(ChessGame.TeamColor.BLACK, order[i]));
         }
     }
 }
@@ -0,0 +1,425 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process chess engine: negamax alpha-beta search with iterative
+ * deepening, a transposition table and a quiescence search over captures.
+ * <p>
+ * Moves are tried in the order hash move, captures by most valuable victim
+ * then least valuable attacker, the two killer moves of the ply, and then
+ * the remaining quiet moves by history score.
+ * <p>
+ * A search can use several threads ("Lazy SMP"): helper threads search the
+ * same root position, starting at staggered depths, and share the
+ * lock-free transposition table, so the results of each thread speed up
+ * the others. The move returned is always the main thread's.
+ * <p>
+ * An engine keeps its tables between searches. Only one search may run on
+ * an engine at a time. Close an engine that searched with helper threads to
+ * stop them.
+ */
+public class ChessEngine implements AutoCloseable {
+    static final int MATE = 30000;
+    static final int MAX_PLY = 128;
+    static final int PIECE_VALUES[] = {0, 900, 330, 320, 500, 100};
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+    // how many nodes to search between looks at the clock
+    private static final int CHECK_INTERVAL = 2048;
+
+    private final TranspositionTable table;
+    private final List<Worker> workers = new ArrayList<>();
+    private ExecutorService helpers;
+    // workers used by the last search; the rest sat idle
+    private int last_threads;
+
+    private long node_limit;
+    private long deadline;
+    private volatile boolean stop;
+    // nodes of all threads, added in chunks of CHECK_INTERVAL
+    private final AtomicLong shared_nodes = new AtomicLong();
+
+    public ChessEngine() {
+        this(16);
+    }
+
+    /**
+     * @param hashMegabytes size of the transposition table
+     */
+    public ChessEngine(int hashMegabytes) {
+        table = new TranspositionTable(hashMegabytes);
+    }
+
+    /**
+     * Searches for the best move for the team whose turn it is. The game
+     * passed in is not changed.
+     *
+     * @param maxDepth     deepest iteration to search, in plies
+     * @param nodeLimit    stop after about this many nodes, or 0 for no limit
+     * @param timeLimitMs  stop after about this many milliseconds, or 0 for no limit
+     * @return the best move found, or null if the team has no legal move
+     */
+    public ChessMove findBestMove(ChessGame game, int maxDepth, long nodeLimit, long timeLimitMs) {
+        return findBestMove(game, maxDepth, nodeLimit, timeLimitMs, 1);
+    }
+
+    /**
+     * Same as {@link #findBestMove(ChessGame, int, long, long)}, searching with
+     * the given number of threads. The node limit counts the nodes of all
+     * threads together.
+     *
+     * @param threads threads to search with, at least 1
+     * @throws IllegalArgumentException if threads is less than 1
+     */
+    public ChessMove findBestMove(ChessGame game, int maxDepth, long nodeLimit, long timeLimitMs, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least 1 search thread, not " + threads);
+        }
+        this.node_limit = nodeLimit;
+        this.deadline = timeLimitMs > 0 ? System.nanoTime() + timeLimitMs * 1_000_000 : 0;
+        this.stop = false;
+        shared_nodes.set(0);
+        last_threads = threads;
+        while (workers.size() < threads) {
+            workers.add(new Worker(workers.size()));
+        }
+        int depth = Math.min(maxDepth, MAX_PLY);
+
+        List<Future<?>> running = new ArrayList<>();
+        if (threads > 1 && helpers == null) {
+            helpers = Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "chess-engine-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        for (int i = 1; i < threads; i++) {
+            Worker helper = workers.get(i);
+            running.add(helpers.submit(() -> helper.iterate(game, depth)));
+        }
+        Worker main = workers.get(0);
+        main.iterate(game, depth);
+        stop = true;
+        for (Future<?> helper : running) {
+            try {
+                helper.get();
+            } catch (Exception e) {
+                throw new RuntimeException("Search helper failed", e);
+            }
+        }
+        return main.completed_depth == 0 ? null : PackedMove.toChessMove(main.best_move);
+    }
+
+    /**
+     * @return nodes visited by the last search
+     */
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : workers.subList(0, last_threads)) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * Stops the helper threads. The engine can still search afterwards and
+     * starts new helpers if it needs them.
+     */
+    @Override
+    public void close() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+            helpers = null;
+        }
+    }
+
+    /**
+     * @return depth of the last fully searched iteration of the last search
+     */
+    public int getDepth() {
+        return workers.isEmpty() ? 0 : workers.get(0).completed_depth;
+    }
+
+    /**
+     * @return score of the last search's best move in centipawns, from the
+     * point of view of the team that was to move
+     */
+    public int getScore() {
+        return workers.isEmpty() ? 0 : workers.get(0).best_score;
+    }
+
+    /**
+     * The state of one search thread. Everything here is private to the
+     * thread except the transposition table it writes to.
+     */
+    private final class Worker {
+        private final int id;
+        private final int moves[][] = new int[MAX_PLY + 1][PackedMove.MAX_POSITION_MOVES];
+        private final int scores[][] = new int[MAX_PLY + 1][PackedMove.MAX_POSITION_MOVES];
+        private final int killers[][] = new int[MAX_PLY + 1][2];
+        // indexed by color, start square and end square
+        private final int history[][][] = new int[2][64][64];
+
+        private ChessGame game;
+        private boolean stopped;
+        private long nodes;
+        private int completed_depth;
+        private int best_score;
+        private int best_move;
+        private int root_move;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        /**
+         * Deepens one ply at a time until the depth or the budget runs out.
+         * Helpers start one ply deeper on every other thread so the threads
+         * spread over different depths.
+         */
+        void iterate(ChessGame root, int maxDepth) {
+            game = new ChessGame(root);
+            stopped = false;
+            nodes = 0;
+            completed_depth = 0;
+            best_move = 0;
+            for (int[] killer : killers) {
+                killer[0] = 0;
+                killer[1] = 0;
+            }
+            // halve the scores left from earlier searches so old cutoffs fade
+            // instead of piling up without bound
+            for (int[][] color : history) {
+                for (int[] from : color) {
+                    for (int to = 0; to < from.length; to++) {
+                        from[to] >>= 1;
+                    }
+                }
+            }
+            for (int depth = 1 + (id & 1); depth <= maxDepth; depth++) {
+                root_move = 0;
+                int score = search(-MATE - 1, MATE + 1, depth, 0);
+                if ((stopped && completed_depth > 0) || root_move == 0) {
+                    break;
+                }
+                best_move = root_move;
+                best_score = score;
+                completed_depth = depth;
+                if (stopped || Math.abs(score) >= MATE - MAX_PLY) {
+                    break;
+                }
+            }
+            game = null;
+        }
+
+        private boolean shouldStop() {
+            if ((nodes & (CHECK_INTERVAL - 1)) != 0) {
+                return stop;
+            }
+            long total = shared_nodes.addAndGet(CHECK_INTERVAL);
+            if ((node_limit > 0 && total >= node_limit) || (deadline != 0 && System.nanoTime() - deadline > 0)) {
+                stop = true;
+            }
+            // the main thread always finishes its first iteration, so there is a move to return
+            return stop && (id > 0 || completed_depth > 0);
+        }
+
+        private int search(int alpha, int beta, int depth, int ply) {
+            if (depth <= 0 || ply >= MAX_PLY) {
+                return quiesce(alpha, beta, ply);
+            }
+            nodes++;
+            if (stopped || shouldStop()) {
+                stopped = true;
+                return 0;
+            }
+            // a position repeated inside the search is scored as the draw it leads to
+            if (ply > 0 && game.isRepetition()) {
+                return 0;
+            }
+
+            long key = game.getZobristKey();
+            long entry = table.probe(key);
+            int hashMove = 0;
+            if (entry != 0) {
+                hashMove = TranspositionTable.move(entry);
+                if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int bound = TranspositionTable.bound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+
+            int list[] = moves[ply];
+            int n = MoveGenerator.generateLegal(game.board, game.curr_turn, game.state, -1L, list, 0);
+            if (n == 0) {
+                return game.isInCheck(game.curr_turn) ? -MATE + ply : 0;
+            }
+            scoreMoves(ply, n, hashMove);
+
+            int color = game.curr_turn.ordinal();
+            int startAlpha = alpha;
+            int bestScore = -MATE - 1;
+            int bestMove = list[0];
+            for (int i = 0; i < n; i++) {
+                int move = pickNext(ply, i, n);
+                game.makeMove(move);
+                int score = -search(-beta, -alpha, depth - 1, ply + 1);
+                game.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if (ply == 0) {
+                        root_move = move;
+                    }
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+                if (alpha >= beta) {
+                    if (!PackedMove.hasFlag(move, PackedMove.CAPTURE)) {
+                        if ((killers[ply][0] & PackedMove.MOVE_MASK) != (move & PackedMove.MOVE_MASK)) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        history[color][PackedMove.from(move)][PackedMove.to(move)] += depth * depth;
+                    }
+                    break;
+                }
+            }
+
+            int bound = bestScore >= beta ? TranspositionTable.LOWER
+                    : bestScore > startAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        /**
+         * Searches captures and promotions only, until the position is quiet, so
+         * the static evaluation is never taken in the middle of an exchange.
+         */
+        private int quiesce(int alpha, int beta, int ply) {
+            nodes++;
+            if (stopped || shouldStop()) {
+                stopped = true;
+                return 0;
+            }
+            int list[] = moves[ply];
+            int n = MoveGenerator.generateLegal(game.board, game.curr_turn, game.state, -1L, list, 0);
+            if (n == 0) {
+                return game.isInCheck(game.curr_turn) ? -MATE + ply : 0;
+            }
+            int standPat = evaluate();
+            if (standPat >= beta || ply >= MAX_PLY) {
+                return standPat;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+
+            // drop the quiet moves, keeping captures and promotions
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (PackedMove.hasFlag(list[i], PackedMove.CAPTURE) || PackedMove.promotion(list[i]) != null) {
+                    list[kept++] = list[i];
+                }
+            }
+            scoreMoves(ply, kept, 0);
+            for (int i = 0; i < kept; i++) {
+                int move = pickNext(ply, i, kept);
+                game.makeMove(move);
+                int score = -quiesce(-beta, -alpha, ply + 1);
+                game.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return score;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+            }
+            return alpha;
+        }
+
+        private void scoreMoves(int ply, int n, int hashMove) {
+            int list[] = moves[ply];
+            int score[] = scores[ply];
+            int color = game.curr_turn.ordinal();
+            for (int i = 0; i < n; i++) {
+                int move = list[i];
+                int plain = move & PackedMove.MOVE_MASK;
+                if (hashMove != 0 && plain == hashMove) {
+                    score[i] = HASH_MOVE_SCORE;
+                } else if (PackedMove.hasFlag(move, PackedMove.CAPTURE)) {
+                    // an en passant capture lands on an empty square and takes a pawn
+                    int victim = PackedMove.hasFlag(move, PackedMove.EN_PASSANT) ? PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()]
+                            : PIECE_VALUES[game.board.pieceAt(PackedMove.to(move)).getPieceType().ordinal()];
+                    int attacker = PIECE_VALUES[game.board.pieceAt(PackedMove.from(move)).getPieceType().ordinal()];
+                    score[i] = CAPTURE_SCORE + victim * 16 - attacker / 10;
+                } else if (plain == (killers[ply][0] & PackedMove.MOVE_MASK)) {
+                    score[i] = KILLER_SCORE + 1;
+                } else if (plain == (killers[ply][1] & PackedMove.MOVE_MASK)) {
+                    score[i] = KILLER_SCORE;
+                } else {
+                    score[i] = Math.min(history[color][PackedMove.from(move)][PackedMove.to(move)], KILLER_SCORE - 1);
+                }
+            }
+        }
+
+        /**
+         * Moves the best scored of the not yet tried moves to position i
+         */
+        private int pickNext(int ply, int i, int n) {
+            int list[] = moves[ply];
+            int score[] = scores[ply];
+            int best = i;
+            for (int j = i + 1; j < n; j++) {
+                if (score[j] > score[best]) {
+                    best = j;
+                }
+            }
+            int move = list[best];
+            list[best] = list[i];
+            list[i] = move;
+            int s = score[best];
+            score[best] = score[i];
+            score[i] = s;
+            return move;
+        }
+
+        /**
+         * @return the board's tapered material and piece-square score in
+         * centipawns for the team to move
+         */
+        private int evaluate() {
+            int score = game.board.getEvaluation();
+            return game.curr_turn == ChessGame.TeamColor.WHITE ? score : -score;
+        }
+    }
+
+    // mate scores are stored relative to the position, not the root
+    private static int toTable(int score, int ply) {
+        return score >= MATE - MAX_PLY ? score + ply : score <= -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE - MAX_PLY ? score - ply : score <= -MATE + MAX_PLY ? score + ply : score;
+    }
+}
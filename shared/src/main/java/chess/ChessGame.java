@@ -3,8 +3,10 @@ package chess;
 import com.sun.source.tree.WhileLoopTree;
 
 import java.security.InvalidParameterException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Objects;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -15,10 +17,55 @@ import java.util.HashSet;
 public class ChessGame {
     ChessBoard board = new ChessBoard();
     ChessGame.TeamColor curr_turn = TeamColor.WHITE;
+    // castling rights, en passant target and halfmove clock, see GameState
+    int state;
+    // starts at 1 and goes up after each black move, as in FEN
+    int fullmove = 1;
+    private ValidMoveCache move_cache;
+    // one undo record per move made: the packed move in bits 0-31, the team
+    // that made it in bit 32, the moved and captured piece codes in bits 33-36
+    // and 37-40 (see ChessPiece.code), and the state before the move from bit 41
+    private long undo_records[] = new long[64];
+    // the position key before each move; with the halfmove clock this is the
+    // history that repetitions are found in
+    private long undo_keys[] = new long[64];
+    private int undo_count;
+
     public ChessGame() {
 
     }
 
+    /**
+     * Makes a copy of another game, including its move history, so the copy
+     * sees the same repetitions and can take back the same moves
+     */
+    public ChessGame(ChessGame other) {
+        this(other, 0);
+    }
+
+    // copies the history from the given undo entry on
+    private ChessGame(ChessGame other, int from) {
+        this.board = new ChessBoard(other.board);
+        this.curr_turn = other.curr_turn;
+        this.state = other.state;
+        this.fullmove = other.fullmove;
+        this.move_cache = other.move_cache;
+        int count = other.undo_count - from;
+        int size = Math.max(count, 64);
+        this.undo_records = Arrays.copyOfRange(other.undo_records, from, from + size);
+        this.undo_keys = Arrays.copyOfRange(other.undo_keys, from, from + size);
+        this.undo_count = count;
+    }
+
+    /**
+     * Makes a copy that keeps only the moves since the last capture or pawn
+     * move. It sees the same repetitions as this game, but costs time for
+     * those moves only, not the whole game, and can take back only those.
+     */
+    public ChessGame copyRecent() {
+        return new ChessGame(this, repeatableFrom());
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -35,6 +82,62 @@ public class ChessGame {
         this.curr_turn = team;
     }
 
+    /**
+     * Lets validMoves answer from a shared cache of legal move lists. Games
+     * may share one cache; pass null to stop caching.
+     *
+     * @param cache the cache to use, or null
+     */
+    public void setMoveCache(ValidMoveCache cache) {
+        this.move_cache = cache;
+    }
+
+    public ValidMoveCache getMoveCache() {
+        return this.move_cache;
+    }
+
+    /**
+     * @return the Zobrist key of the current position, which covers the board,
+     * which team is to move, the castling rights and the en passant file
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey() ^ Zobrist.CASTLING[GameState.castling(state)];
+        int enPassant = GameState.enPassant(state);
+        if (enPassant != 0) {
+            key ^= Zobrist.EN_PASSANT[enPassant & 7];
+        }
+        return curr_turn == TeamColor.BLACK ? key ^ Zobrist.SIDE : key;
+    }
+
+    /**
+     * @return the number of moves made since the last capture or pawn move,
+     * counting each team's moves separately
+     */
+    public int getHalfmoveClock() {
+        return GameState.halfmove(state);
+    }
+
+    /**
+     * @return the move number, starting at 1 and going up after each black move
+     */
+    public int getFullmoveNumber() {
+        return fullmove;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this==o) return true;
+        if(o==null || getClass()!=o.getClass()) return false;
+        ChessGame that=(ChessGame) o;
+        return curr_turn == that.curr_turn && (state & GameState.POSITION_MASK) == (that.state & GameState.POSITION_MASK)
+                && Objects.equals(board, that.board);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getZobristKey());
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -44,25 +147,6 @@ public class ChessGame {
     }
 
 
-private Collection<ChessMove> checkChecking(Collection<ChessMove> the_moves, ChessPosition startPosition) {
-        Collection<ChessMove> invalid = new HashSet<>();
-        ChessPiece moving_piece = board.getPiece(startPosition);
-        for (ChessMove m : the_moves){
-            ChessPiece captured = board.getPiece(m.getEndPosition());
-            board.addPiece(m.getStartPosition(), null);
-            board.addPiece(m.getEndPosition(), moving_piece);
-            if (isInCheck(moving_piece.getTeamColor())){
-                board.addPiece(m.getStartPosition(), moving_piece);
-                board.addPiece(m.getEndPosition(), captured);
-                invalid.add(m);
-            }
-            board.addPiece(m.getStartPosition(), moving_piece);
-            board.addPiece(m.getEndPosition(), captured);
-        }
-        the_moves.removeAll(invalid);
-        return the_moves;
-    }
-
     /**
      * Gets a valid moves for a piece at the given location
      *
@@ -76,11 +160,46 @@ private Collection<ChessMove> checkChecking(Collection<ChessMove> the_moves, Che
         if (moving_piece == null) {
             return null;
         }
-        Collection<ChessMove> the_moves = moving_piece.pieceMoves(board, startPosition);
-        if (the_moves.isEmpty()) {
-            return the_moves;
+        int square = PackedMove.square(startPosition);
+        long key = 0;
+        if (move_cache != null) {
+            key = ValidMoveCache.key(getZobristKey(), square);
+            int cached[] = move_cache.get(key);
+            if (cached != null) {
+                return toChessMoves(cached, cached.length);
+            }
+        }
+        int moves[] = new int[PackedMove.MAX_PIECE_MOVES];
+        int count = MoveGenerator.generateLegal(board, moving_piece.getTeamColor(), state, Bitboards.bit(square), moves, 0);
+        if (move_cache != null) {
+            move_cache.put(key, Arrays.copyOf(moves, count));
+        }
+        return toChessMoves(moves, count);
+    }
+
+    /**
+     * Gets the valid moves for a piece the slow way, by trying each of its
+     * pseudo-legal moves on the board and keeping the ones that do not leave
+     * its king in check. Only meant for checking {@link #validMoves} against.
+     */
+    Collection<ChessMove> validMovesByFiltering(ChessPosition startPosition) {
+        ChessPiece moving_piece = board.getPiece(startPosition);
+
+        if (moving_piece == null) {
+            return null;
+        }
+        int moves[] = new int[PackedMove.MAX_PIECE_MOVES];
+        int count = MoveGenerator.filterLegal(board, moving_piece.getTeamColor(), state,
+                Bitboards.bit(PackedMove.square(startPosition)), moves, 0);
+        return toChessMoves(moves, count);
+    }
+
+    private static Collection<ChessMove> toChessMoves(int moves[], int count) {
+        Collection<ChessMove> the_moves = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            the_moves.add(PackedMove.toChessMove(moves[i]));
         }
-        return checkChecking(the_moves, startPosition);
+        return the_moves;
     }
 
     /**
@@ -91,55 +210,201 @@ private Collection<ChessMove> checkChecking(Collection<ChessMove> the_moves, Che
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         ChessPiece moving_piece=board.getPiece(move.getStartPosition());
-        if (move.getPromotionPiece() != null) {
-            moving_piece = new ChessPiece(moving_piece.getTeamColor(), move.getPromotionPiece());
-        }
         if(moving_piece==null || moving_piece.getTeamColor() != getTeamTurn()) {
             throw new chess.InvalidMoveException();
         }
-        Collection<ChessMove> the_moves=validMoves(move.getStartPosition());
-        if(the_moves==null) {
-            throw new chess.InvalidMoveException();
+        int from = PackedMove.square(move.getStartPosition());
+        int wanted = PackedMove.fromChessMove(move);
+        int moves[] = new int[PackedMove.MAX_PIECE_MOVES];
+        int count = MoveGenerator.generateLegal(board, moving_piece.getTeamColor(), state, Bitboards.bit(from), moves, 0);
+        for (int i = 0; i < count; i++) {
+            if ((moves[i] & PackedMove.MOVE_MASK) == wanted) {
+                makeMove(moves[i]);
+                return;
+            }
         }
-        the_moves = checkChecking(the_moves, move.getStartPosition());
-        if(the_moves.contains(move)) {
-            board.addPiece(move.getStartPosition(), null);
-            ChessPiece captured = board.getPiece(move.getEndPosition());
-            board.addPiece(move.getEndPosition(), moving_piece);
-        } else {
-            throw new chess.InvalidMoveException();
+        throw new chess.InvalidMoveException();
+    }
+
+    /**
+     * Plays a packed move without checking that it is legal, and remembers
+     * enough to take it back with {@link #unmakeMove()}. Meant for search,
+     * perft and replay, which only play moves from the move generator.
+     *
+     * @param move a legal {@link PackedMove} for the team whose turn it is
+     */
+    public void makeMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int moving_piece = board.codeAt(from);
+        int captured = board.codeAt(to);
+        if (undo_count == undo_records.length) {
+            int size = undo_count * 2;
+            undo_records = Arrays.copyOf(undo_records, size);
+            undo_keys = Arrays.copyOf(undo_keys, size);
+        }
+        undo_records[undo_count] = (move & 0xFFFFFFFFL) | ((long) curr_turn.ordinal() << 32)
+                | ((long) moving_piece << 33) | ((long) captured << 37) | ((long) state << 41);
+        undo_keys[undo_count] = getZobristKey();
+        undo_count++;
+
+        boolean pawn = (moving_piece - 1) % 6 == ChessPiece.PieceType.PAWN.ordinal();
+        ChessPiece.PieceType promo = PackedMove.promotion(move);
+        board.setSquare(from, 0);
+        // codes run in blocks of six per color, so this keeps the mover's color
+        board.setSquare(to, promo == null ? moving_piece : (moving_piece - 1) / 6 * 6 + promo.ordinal() + 1);
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            board.setSquare((from & 56) | (to & 7), 0);
+        } else if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            int rook_from = to > from ? from + 3 : from - 4;
+            int rook_to = (from + to) / 2;
+            board.setSquare(rook_to, board.codeAt(rook_from));
+            board.setSquare(rook_from, 0);
         }
-        setTeamTurn(getTeamTurn() == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+
+        int enPassant = 0;
+        if (PackedMove.hasFlag(move, PackedMove.DOUBLE_PUSH)) {
+            // only record the target when an enemy pawn could take it, so
+            // positions that only differ by an unusable target hash the same
+            int passed = (from + to) / 2;
+            if ((MoveGenerator.PAWN_ATTACKS[curr_turn.ordinal()][passed] & board.pieces(opponent(curr_turn), ChessPiece.PieceType.PAWN)) != 0) {
+                enPassant = passed;
+            }
+        }
+        int halfmove = pawn || captured != 0 || PackedMove.hasFlag(move, PackedMove.CAPTURE) ? 0 : GameState.halfmove(state) + 1;
+        state = GameState.of(GameState.keptRights(GameState.castling(state), from, to), enPassant, halfmove);
+        if (curr_turn == TeamColor.BLACK) {
+            fullmove++;
+        }
+        curr_turn = opponent(curr_turn);
     }
 
-    public ChessPosition getKingPos(TeamColor teamColor) {
-        ChessPosition curr_pos = null;
-        ChessPiece curr_piece = null;
-        for (int i = 1; i < 9; i++){
-            for (int j = 1; j < 9; j++){
-                curr_pos = new ChessPosition(i,j);
-                curr_piece = board.getPiece(curr_pos);
-                if (curr_piece != null && curr_piece.getTeamColor() == teamColor
-                        && curr_piece.getPieceType() == ChessPiece.PieceType.KING){
-                    return curr_pos;
-                }
+    /**
+     * Takes back the last move made, restoring the board and turn exactly
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void unmakeMove() {
+        if (undo_count == 0) {
+            throw new IllegalStateException("No move to unmake");
+        }
+        undo_count--;
+        long record = undo_records[undo_count];
+        int move = (int) record;
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int moving_piece = (int) (record >>> 33) & 15;
+        board.setSquare(to, (int) (record >>> 37) & 15);
+        board.setSquare(from, moving_piece);
+        if (PackedMove.hasFlag(move, PackedMove.EN_PASSANT)) {
+            // the taken pawn is the other color's pawn; pawn codes are 6 apart
+            int pawn = moving_piece <= 6 ? moving_piece + 6 : moving_piece - 6;
+            board.setSquare((from & 56) | (to & 7), pawn);
+        } else if (PackedMove.hasFlag(move, PackedMove.CASTLE)) {
+            int rook_from = to > from ? from + 3 : from - 4;
+            int rook_to = (from + to) / 2;
+            board.setSquare(rook_from, board.codeAt(rook_to));
+            board.setSquare(rook_to, 0);
+        }
+        state = (int) (record >>> 41);
+        curr_turn = ((record >>> 32) & 1) == 0 ? TeamColor.WHITE : TeamColor.BLACK;
+        if (curr_turn == TeamColor.BLACK) {
+            fullmove--;
+        }
+    }
+
+    /**
+     * Checks the key history for earlier occurrences of the current position.
+     * A capture or pawn move can never be undone, so only the positions
+     * since the last one can match, and of those only every second one has
+     * the same team to move.
+     *
+     * @return how many times the current position has occurred in this game,
+     * counting the current one
+     */
+    public int getRepetitionCount() {
+        long key = getZobristKey();
+        int oldest = repeatableFrom();
+        int count = 1;
+        for (int i = undo_count - 2; i >= oldest; i -= 2) {
+            if (undo_keys[i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return True if the current position has occurred three times, which
+     * lets either player claim a draw
+     */
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 3;
+    }
+
+    /**
+     * Same scan as {@link #getRepetitionCount()}, stopping at the first match
+     *
+     * @return True if the current position occurred before
+     */
+    boolean isRepetition() {
+        long key = getZobristKey();
+        int oldest = repeatableFrom();
+        for (int i = undo_count - 2; i >= oldest; i -= 2) {
+            if (undo_keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the first undo entry whose position could still come back,
+     * which is the one right after the last capture or pawn move
+     */
+    private int repeatableFrom() {
+        int halfmove = GameState.halfmove(state);
+        if (halfmove < GameState.MAX_HALFMOVE) {
+            return Math.max(0, undo_count - halfmove);
+        }
+        // the clock has saturated, so look for the move in the records
+        int oldest = undo_count;
+        while (oldest > 0) {
+            long record = undo_records[oldest - 1];
+            int moved = (int) (record >>> 33) & 15;
+            if ((moved - 1) % 6 == ChessPiece.PieceType.PAWN.ordinal() || ((record >>> 37) & 15) != 0) {
+                break;
             }
+            oldest--;
         }
-        return null;
+        return oldest;
+    }
+
+    /**
+     * @return the number of moves that {@link #unmakeMove()} can take back
+     */
+    public int getUndoDepth() {
+        return undo_count;
+    }
+
+    static TeamColor opponent(TeamColor teamColor) {
+        return teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+    }
+
+    public ChessPosition getKingPos(TeamColor teamColor) {
+        int square = board.kingSquare(teamColor);
+        if (square < 0) {
+            return null;
+        }
+        return ChessPosition.of(square);
     }
 
     public Collection<ChessMove> getEnemies(TeamColor teamColor) {
         Collection<ChessMove> the_moves = new HashSet<>();
-        ChessPosition curr_pos = null;
-        ChessPiece curr_piece = null;
-        for (int i = 1; i < 9; i++){
-            for (int j = 1; j < 9; j++){
-                curr_pos = new ChessPosition(i,j);
-                curr_piece = board.getPiece(curr_pos);
-                if (curr_piece != null && curr_piece.getTeamColor() != teamColor) {
-                    the_moves.addAll(curr_piece.pieceMoves(board, curr_pos));
-                }
-            }
+        for (long left = board.colorMask(opponent(teamColor)); left != 0; left &= left - 1) {
+            int square = Long.numberOfTrailingZeros(left);
+            ChessPosition curr_pos = ChessPosition.of(square);
+            the_moves.addAll(board.pieceAt(square).pieceMoves(board, curr_pos));
         }
         return the_moves;
     }
@@ -151,17 +416,11 @@ private Collection<ChessMove> checkChecking(Collection<ChessMove> the_moves, Che
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        Collection<ChessMove> the_moves = getEnemies(teamColor);
-        ChessPosition king_pos = getKingPos(teamColor);
-        if (king_pos == null){
+        int king = board.kingSquare(teamColor);
+        if (king < 0){
             return false;
         }
-        for (ChessMove move : the_moves){
-            if (move.getEndPosition().equals(king_pos)) {
-                return true;
-            }
-        }
-        return false;
+        return MoveGenerator.isAttacked(board, king, opponent(teamColor));
     }
 
     /**
@@ -171,41 +430,59 @@ private Collection<ChessMove> checkChecking(Collection<ChessMove> the_moves, Che
      * @return True if the specified team is in checkmate
      */
     public boolean isInCheckmate(TeamColor teamColor) {
-        Collection<ChessMove> enemies = getEnemies(teamColor);
-        Collection<ChessMove> valid = validMoves(getKingPos(teamColor));
-        valid.removeAll(enemies);
-        if (isInCheck(teamColor) && valid.isEmpty()) {
-            return true;
-        }
-        return false;
+        return isInCheck(teamColor) && !hasAnyLegalMove(teamColor);
     }
 
     /**
      * Determines if the given team is in stalemate, which here is defined as having
-     * no valid moves
+     * no valid moves while not in check
      *
      * @param teamColor which team to check for stalemate
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        ChessPosition curr_pos = null;
-        ChessPiece curr_piece = null;
-        Collection<ChessMove> the_moves = new HashSet<>();
-        for (int i = 1; i < 9; i++){
-            for (int j = 1; j < 9; j++){
-                curr_pos = new ChessPosition(i,j);
-                curr_piece = board.getPiece(curr_pos);
-                if (curr_piece != null && curr_piece.getTeamColor() == teamColor){
-                    the_moves.addAll(validMoves(curr_pos));
-                }
+        return !isInCheck(teamColor) && !hasAnyLegalMove(teamColor);
+    }
+
+    /**
+     * Stops at the first legal move found, so it is much cheaper than counting
+     * or listing every move when the answer is yes.
+     *
+     * @return True if any piece of the given team has a legal move
+     */
+    public boolean hasAnyLegalMove(TeamColor teamColor) {
+        int moves[] = new int[PackedMove.MAX_PIECE_MOVES];
+        // the king first: when in check its moves are the likeliest way out
+        long others = board.colorMask(teamColor);
+        int king = board.kingSquare(teamColor);
+        if (king >= 0) {
+            if (MoveGenerator.generateLegal(board, teamColor, state, Bitboards.bit(king), moves, 0) > 0) {
+                return true;
             }
+            others &= ~Bitboards.bit(king);
         }
-        if (the_moves.isEmpty()){
-            return true;
+        for (long left = others; left != 0; left &= left - 1) {
+            if (MoveGenerator.generateLegal(board, teamColor, state, left & -left, moves, 0) > 0) {
+                return true;
+            }
         }
         return false;
     }
 
+    /**
+     * @return the number of legal moves the given team has, counting each
+     * promotion choice separately
+     */
+    public int legalMoveCount(TeamColor teamColor) {
+        int moves[] = new int[PackedMove.MAX_PIECE_MOVES];
+        int count = 0;
+        // one piece at a time, so hand-built boards with many queens cannot overflow the buffer
+        for (long left = board.colorMask(teamColor); left != 0; left &= left - 1) {
+            count += MoveGenerator.generateLegal(board, teamColor, state, left & -left, moves, 0);
+        }
+        return count;
+    }
+
     /**
      * Sets this game's chessboard with a given board
      *
@@ -213,6 +490,9 @@ private Collection<ChessMove> checkChecking(Collection<ChessMove> the_moves, Che
      */
     public void setBoard(ChessBoard board) {
         this.board = board;
+        this.state = GameState.of(GameState.castlingRightsOf(board), 0, 0);
+        this.fullmove = 1;
+        undo_count = 0;
     }
 
     /**
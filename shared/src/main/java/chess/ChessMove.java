@@ -9,9 +9,13 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessMove {
-    private ChessPosition start;
-    private ChessPosition end;
-    private ChessPiece.PieceType promo;
+    // shared moves by the start, end and promotion bits of their packed form,
+    // filled in as they are first asked for
+    private static final ChessMove MOVES[] = new ChessMove[PackedMove.MOVE_MASK + 1];
+
+    private final ChessPosition start;
+    private final ChessPosition end;
+    private final ChessPiece.PieceType promo;
 
     public ChessMove(ChessPosition startPosition, ChessPosition endPosition,
                      ChessPiece.PieceType promotionPiece) {
@@ -20,6 +24,41 @@ public class ChessMove {
         this.promo = promotionPiece;
     }
 
+    /**
+     * Moves never change, so every move between two on-board squares has one
+     * shared instance. Prefer this to the constructor on hot paths.
+     *
+     * @return the shared move, or a new one if a position is off the board
+     */
+    public static ChessMove of(ChessPosition startPosition, ChessPosition endPosition,
+                               ChessPiece.PieceType promotionPiece) {
+        if (!onBoard(startPosition) || !onBoard(endPosition)) {
+            return new ChessMove(startPosition, endPosition, promotionPiece);
+        }
+        return of(PackedMove.of(Bitboards.square(startPosition), Bitboards.square(endPosition), promotionPiece, 0));
+    }
+
+    /**
+     * @return the shared move for a packed move; its flags are ignored
+     */
+    static ChessMove of(int packed) {
+        int index = packed & PackedMove.MOVE_MASK;
+        ChessMove move = MOVES[index];
+        if (move == null) {
+            // a race here only builds an equal move twice, and the final fields
+            // make either one safe to hand to other threads
+            move = new ChessMove(ChessPosition.of(PackedMove.from(index)), ChessPosition.of(PackedMove.to(index)),
+                    PackedMove.promotion(index));
+            MOVES[index] = move;
+        }
+        return move;
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     @Override
     public String toString() {
         return "ChessMove{end=" + end + ", promo=" + promo + '}';
@@ -35,7 +74,8 @@ public class ChessMove {
 
     @Override
     public int hashCode() {
-        return Objects.hash(start, end, promo);
+        int hash = Objects.hashCode(start) * 73 + Objects.hashCode(end);
+        return hash * 8 + (promo == null ? 0 : promo.ordinal() + 1);
     }
 
     /**
@@ -2,6 +2,7 @@ package chess;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Objects;
 
 /**
  * Represents a single chess piece
@@ -10,13 +11,63 @@ import java.util.HashSet;
  * signature of the existing methods.
  */
 public class ChessPiece {
-    ChessGame.TeamColor team;
-    PieceType piece;
+    // the twelve colored pieces, by Bitboards.index
+    private static final ChessPiece PIECES[] = new ChessPiece[Bitboards.PIECE_KINDS];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[Bitboards.index(color, type)] = new ChessPiece(color, type);
+            }
+        }
+    }
+
+    final ChessGame.TeamColor team;
+    final PieceType piece;
     public ChessPiece(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
         team = pieceColor;
         piece = type;
     }
 
+    /**
+     * Pieces never change, so there is one shared instance of each colored
+     * piece type. Prefer this to the constructor.
+     *
+     * @return the shared piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[Bitboards.index(pieceColor, type)];
+    }
+
+    /**
+     * @return the shared piece for a square code from {@link #code}, or null
+     * for 0 (an empty square)
+     */
+    static ChessPiece of(int code) {
+        return code == 0 ? null : PIECES[code - 1];
+    }
+
+    /**
+     * @return the piece's code as stored in {@link ChessBoard}'s mailbox: its
+     * {@link Bitboards#index} plus one, so 0 can mean an empty square
+     */
+    static int code(ChessPiece piece) {
+        return piece == null ? 0 : Bitboards.index(piece) + 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if(this==o) return true;
+        if(o==null || getClass()!=o.getClass()) return false;
+        ChessPiece that=(ChessPiece) o;
+        return team==that.team && piece==that.piece;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(team) * 7 + Objects.hashCode(piece);
+    }
+
     @Override
     public String toString() {
         if (team == ChessGame.TeamColor.WHITE){
@@ -75,315 +126,25 @@ public class ChessPiece {
      * @return Collection of valid moves
      */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
-        switch (piece){
-            case BISHOP: return bishopMoves(board, myPosition);
-            case ROOK:  return rookMoves(board, myPosition);
-            case QUEEN: return queenMoves(board, myPosition);
-            case KING: return kingMoves(board, myPosition);
-            case KNIGHT: return knightMoves(board, myPosition);
-            case PAWN: return pawnMoves(board, myPosition);
-        }
-        throw new RuntimeException("Not implemented");
-    }
-
-    private Collection<ChessMove> addMove(ChessPosition start, ChessPosition end, PieceType pro) {
-        Collection<ChessMove> move = new HashSet<ChessMove>();
-        move.add(new ChessMove(start, end, pro));
-        return move;
-    }
-
-    private Collection<ChessMove> calculateMove(ChessBoard board, ChessPosition start, ChessPosition pos,
-                                                ChessPosition end, PieceType pro){
-        Collection<ChessMove> move = new HashSet<ChessMove>();
-        if (board.getPiece(end) != null && board.getPiece(end).getTeamColor() == this.team) {
-            return move;
-        } else {
-            return addMove(start, end, pro);
-        }
-    }
-
-
-    private Collection<ChessMove> bishopMoves(ChessBoard board, ChessPosition start){
-        Collection<ChessMove> moves = new HashSet<ChessMove>();
-        ChessPosition pos = start;
-        //up-left
-        while (pos.getRow() < 8 && pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()-1), null));
-            pos = new ChessPosition(pos.getRow()+1, pos.getColumn()-1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //up-right
-        pos = start;
-        while (pos.getRow() < 8 && pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()+1), null));
-            pos = new ChessPosition(pos.getRow()+1, pos.getColumn()+1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //down-left
-        pos = start;
-        while (pos.getRow() > 1 && pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()-1), null));
-            pos = new ChessPosition(pos.getRow()-1, pos.getColumn()-1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //down-right
-        pos = start;
-        while (pos.getRow() > 1 && pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()+1), null));
-            pos = new ChessPosition(pos.getRow()-1, pos.getColumn()+1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> rookMoves(ChessBoard board, ChessPosition start){
-        Collection<ChessMove> moves = new HashSet<ChessMove>();
-        ChessPosition pos = start;
-        //up
-        while (pos.getRow() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()), null));
-            pos = new ChessPosition(pos.getRow()+1, pos.getColumn());
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //right
-        pos = start;
-        while (pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow(), pos.getColumn()+1), null));
-            pos = new ChessPosition(pos.getRow(), pos.getColumn()+1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //left
-        pos = start;
-        while (pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow(), pos.getColumn()-1), null));
-            pos = new ChessPosition(pos.getRow(), pos.getColumn()-1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //down
-        pos = start;
-        while (pos.getRow() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()), null));
-            pos = new ChessPosition(pos.getRow()-1, pos.getColumn());
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> queenMoves(ChessBoard board, ChessPosition start){
-        Collection<ChessMove> moves = new HashSet<ChessMove>();
-        ChessPosition pos = start;
-        //up-left
-        while (pos.getRow() < 8 && pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()-1), null));
-            pos = new ChessPosition(pos.getRow()+1, pos.getColumn()-1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //up-right
-        pos = start;
-        while (pos.getRow() < 8 && pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()+1), null));
-            pos = new ChessPosition(pos.getRow()+1, pos.getColumn()+1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //down-left
-        pos = start;
-        while (pos.getRow() > 1 && pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()-1), null));
-            pos = new ChessPosition(pos.getRow()-1, pos.getColumn()-1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //down-right
-        pos = start;
-        while (pos.getRow() > 1 && pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()+1), null));
-            pos = new ChessPosition(pos.getRow()-1, pos.getColumn()+1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        pos = start;
-        //up
-        while (pos.getRow() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()), null));
-            pos = new ChessPosition(pos.getRow()+1, pos.getColumn());
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //right
-        pos = start;
-        while (pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow(), pos.getColumn()+1), null));
-            pos = new ChessPosition(pos.getRow(), pos.getColumn()+1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //left
-        pos = start;
-        while (pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow(), pos.getColumn()-1), null));
-            pos = new ChessPosition(pos.getRow(), pos.getColumn()-1);
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        //down
-        pos = start;
-        while (pos.getRow() > 1){
-            moves.addAll(calculateMove(board, start, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()), null));
-            pos = new ChessPosition(pos.getRow()-1, pos.getColumn());
-            if (board.getPiece(pos) != null){
-                break;
-            }
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> kingMoves(ChessBoard board, ChessPosition pos){
-        Collection<ChessMove> moves = new HashSet<ChessMove>();
-
-        if (pos.getRow() < 8){
-            if (pos.getColumn() > 1) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow() + 1, pos.getColumn() - 1), null));
-            }
-            if (pos.getColumn() < 8) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow() + 1, pos.getColumn() + 1), null));
-            }
-            moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()), null));
-        }
-        if (pos.getRow() > 1){
-            if (pos.getColumn() > 1) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()-1), null));
-            }
-            if (pos.getColumn() < 8) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()+1), null));
-            }
-            moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()), null));
+        int moves[] = new int[PackedMove.MAX_PIECE_MOVES];
+        int count = pieceMoves(board, PackedMove.square(myPosition), moves, 0);
+        Collection<ChessMove> the_moves = new HashSet<ChessMove>();
+        for (int i = 0; i < count; i++) {
+            the_moves.add(PackedMove.toChessMove(moves[i]));
         }
-        if (pos.getColumn() < 8){
-            moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow(), pos.getColumn()+1), null));
-        }
-        if (pos.getColumn() > 1){
-            moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow(), pos.getColumn()-1), null));
-        }
-        return moves;
-    }
-
-    private Collection<ChessMove> knightMoves(ChessBoard board, ChessPosition pos){
-        Collection<ChessMove> moves = new HashSet<ChessMove>();
-        if (pos.getRow()< 7) {
-            if (pos.getColumn() < 8) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()+2, pos.getColumn()+1), null));
-            }
-            if (pos.getColumn() > 1) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()+2, pos.getColumn()-1), null));
-            }
-        }
-        if (pos.getRow()> 2) {
-            if (pos.getColumn() < 8) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-2, pos.getColumn()+1), null));
-            }
-            if (pos.getColumn() > 1) {
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-2, pos.getColumn()-1), null));
-            }
-        }
-        if (pos.getColumn() < 7) {
-            if (pos.getRow() < 8){
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()+2), null));
-            }
-            if (pos.getRow() > 1){
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()+2), null));
-
-            }
-        }
-        if (pos.getColumn() > 2) {
-            if (pos.getRow() < 8){
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()+1, pos.getColumn()-2), null));
-            }
-            if (pos.getRow() > 1){
-                moves.addAll(calculateMove(board, pos, pos, new ChessPosition(pos.getRow()-1, pos.getColumn()-2), null));
-
-            }
-        }
-        return moves;
+        return the_moves;
     }
 
-    private Collection<ChessMove> calculatePawns(ChessBoard board, ChessPosition start, int grad, ChessPosition end){
-        Collection<ChessMove> move = new HashSet<ChessMove>();
-        if (board.getPiece(end) != null && board.getPiece(end).getTeamColor() == this.team) {
-            return move;
-        } else if (end.getRow() == grad) {
-            move.addAll(addMove(start, end, PieceType.ROOK));
-            move.addAll(addMove(start, end, PieceType.BISHOP));
-            move.addAll(addMove(start, end, PieceType.QUEEN));
-            move.addAll(addMove(start, end, PieceType.KNIGHT));
-            return move;
-        } else {
-            return addMove(start, end, null);
-        }
-    }
-
-    private Collection<ChessMove> pawnMoves(ChessBoard board, ChessPosition pos){
-        Collection<ChessMove> moves = new HashSet<ChessMove>();
-        switch (team){
-            case WHITE:
-                if (pos.getRow() < 8 && board.getPiece(new ChessPosition(pos.getRow()+1, pos.getColumn())) == null) {
-                    // move 1
-                    moves.addAll(calculatePawns(board, pos, 8, new ChessPosition(pos.getRow()+1, pos.getColumn())));
-                    if (pos.getRow() == 2 && board.getPiece(new ChessPosition(pos.getRow()+1, pos.getColumn())) == null
-                            && board.getPiece(new ChessPosition(pos.getRow()+2, pos.getColumn())) == null) {
-                        // initial move 2
-                        moves.addAll(calculatePawns(board, pos,8, new ChessPosition(pos.getRow()+2, pos.getColumn())));
-                    }
-                }
-                if (pos.getColumn() > 1 && board.getPiece(new ChessPosition(pos.getRow()+ 1, pos.getColumn()-1)) != null){
-                    moves.addAll(calculatePawns(board, pos, 8, new ChessPosition(pos.getRow()+1, pos.getColumn()-1)));
-                }
-                if (pos.getColumn() < 8 && board.getPiece(new ChessPosition(pos.getRow()+ 1, pos.getColumn()+1)) != null){
-                    moves.addAll(calculatePawns(board, pos, 8, new ChessPosition(pos.getRow()+1, pos.getColumn()+1)));
-                }
-                break;
-            case BLACK:
-                if (pos.getRow() > 1 && board.getPiece(new ChessPosition(pos.getRow()-1, pos.getColumn())) == null) {
-                    // move 1
-                    moves.addAll(calculatePawns(board, pos, 1, new ChessPosition(pos.getRow()-1, pos.getColumn())));
-                    if (pos.getRow() == 7 && board.getPiece(new ChessPosition(pos.getRow()-1, pos.getColumn())) == null
-                            && board.getPiece(new ChessPosition(pos.getRow()-2, pos.getColumn())) == null) {
-                        // initial move 2
-                        moves.addAll(calculatePawns(board, pos,1, new ChessPosition(pos.getRow()-2, pos.getColumn())));
-                    }
-                }
-                if (pos.getColumn() > 1 && board.getPiece(new ChessPosition(pos.getRow()- 1, pos.getColumn()-1)) != null){
-                    moves.addAll(calculatePawns(board, pos, 1, new ChessPosition(pos.getRow()-1, pos.getColumn()-1)));
-                }
-                if (pos.getColumn() < 8 && board.getPiece(new ChessPosition(pos.getRow()- 1, pos.getColumn()+1)) != null){
-                    moves.addAll(calculatePawns(board, pos, 1, new ChessPosition(pos.getRow()-1, pos.getColumn()+1)));
-                }
-                break;
-        }
-        return moves;
+    /**
+     * Same as {@link #pieceMoves(ChessBoard, ChessPosition)}, but writes the moves
+     * as {@link PackedMove} ints into a caller-owned buffer without allocating
+     *
+     * @param square the square this piece stands on, see {@link PackedMove#square}
+     * @param moves  buffer to write into, needs room for {@link PackedMove#MAX_PIECE_MOVES} more moves
+     * @param count  number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    public int pieceMoves(ChessBoard board, int square, int moves[], int count) {
+        return MoveGenerator.generate(board, square, team, piece, moves, count);
     }
 }
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.Objects;
-
 /**
  * Represents a single square position on a chess board
  * <p>
@@ -9,13 +7,43 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
-    private int row;
-    private int col;
+    // the 64 on-board positions, by square number (see Bitboards)
+    private static final ChessPosition POSITIONS[] = new ChessPosition[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            POSITIONS[sq] = new ChessPosition((sq >>> 3) + 1, (sq & 7) + 1);
+        }
+    }
+
+    private final int row;
+    private final int col;
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Positions never change, so every on-board square has one shared
+     * instance. Prefer this to the constructor on hot paths.
+     *
+     * @return the shared position for the square, or a new one if it is off
+     * the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[(row - 1) * 8 + (col - 1)];
+    }
+
+    /**
+     * @return the shared position for a square number 0-63
+     */
+    static ChessPosition of(int square) {
+        return POSITIONS[square];
+    }
+
     @Override
     public String toString() {
         return "("+ row + ", " + col + ')';
@@ -31,7 +59,8 @@ public class ChessPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        // distinct for every on-board square, with no boxing or varargs array
+        return row * 8 + col;
     }
 
     /**
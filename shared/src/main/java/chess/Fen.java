@@ -0,0 +1,305 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, for example the
+ * starting position:
+ * <pre>rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1</pre>
+ * Parsing walks the text one character at a time, straight out of a
+ * {@link CharSequence} or an ASCII {@link ByteBuffer}, without splitting it
+ * into substrings. Writing goes straight into a byte buffer.
+ * <p>
+ * An en passant square is only kept when a pawn can actually capture onto
+ * it, the same rule {@link ChessGame#makeMove(int)} follows, and castling
+ * rights are only kept while the king and rook are on their home squares, so
+ * parsed positions hash the same as played ones.
+ */
+public final class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * Longest FEN this class writes: 71 characters of piece placement, then
+     * "w KQkq e3", a halfmove clock of at most 8191 and a fullmove number of
+     * at most 7 digits, with the spaces between them
+     */
+    public static final int MAX_LENGTH = 96;
+
+    private static final String LETTERS = "KQBNRPkqbnrp";
+
+    private Fen() {
+    }
+
+    /**
+     * @return a new game in the position the FEN describes
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame parse(CharSequence fen) {
+        return new Parser(fen).game();
+    }
+
+    /**
+     * Parses ASCII FEN from the buffer's position to its limit, then moves the
+     * position to the limit. The bytes are read in place, not copied.
+     *
+     * @return a new game in the position the FEN describes
+     * @throws IllegalArgumentException if the text is not valid FEN
+     */
+    public static ChessGame parse(ByteBuffer ascii) {
+        ChessGame game = parse(new AsciiView(ascii, ascii.position(), ascii.limit()));
+        ascii.position(ascii.limit());
+        return game;
+    }
+
+    public static String toFen(ChessGame game) {
+        ByteBuffer out = ByteBuffer.allocate(MAX_LENGTH);
+        write(game, out);
+        return new String(out.array(), 0, out.position(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the game's position as ASCII FEN at the buffer's position
+     *
+     * @param out needs up to {@link #MAX_LENGTH} bytes of room
+     */
+    public static void write(ChessGame game, ByteBuffer out) {
+        ChessBoard board = game.getBoard();
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int code = board.codeAt(row * 8 + col);
+                if (code == 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.put((byte) ('0' + empty));
+                    empty = 0;
+                }
+                out.put((byte) LETTERS.charAt(code - 1));
+            }
+            if (empty > 0) {
+                out.put((byte) ('0' + empty));
+            }
+            if (row > 0) {
+                out.put((byte) '/');
+            }
+        }
+        out.put((byte) ' ').put((byte) (game.getTeamTurn() == ChessGame.TeamColor.WHITE ? 'w' : 'b'));
+
+        out.put((byte) ' ');
+        int castling = GameState.castling(game.state);
+        if (castling == 0) {
+            out.put((byte) '-');
+        }
+        for (int i = 0; i < 4; i++) {
+            if ((castling & (1 << i)) != 0) {
+                out.put((byte) "KQkq".charAt(i));
+            }
+        }
+
+        out.put((byte) ' ');
+        int enPassant = GameState.enPassant(game.state);
+        if (enPassant == 0) {
+            out.put((byte) '-');
+        } else {
+            out.put((byte) ('a' + (enPassant & 7))).put((byte) ('1' + (enPassant >>> 3)));
+        }
+
+        out.put((byte) ' ');
+        putNumber(out, game.getHalfmoveClock());
+        out.put((byte) ' ');
+        putNumber(out, game.getFullmoveNumber());
+    }
+
+    private static void putNumber(ByteBuffer out, int value) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits *= 10;
+        }
+        for (; digits > 0; digits /= 10) {
+            out.put((byte) ('0' + value / digits % 10));
+        }
+    }
+
+    /**
+     * Reads one field after another, keeping only an index into the text
+     */
+    private static final class Parser {
+        private final CharSequence text;
+        private int at;
+
+        Parser(CharSequence text) {
+            this.text = text;
+        }
+
+        ChessGame game() {
+            skipSpaces();
+            ChessBoard board = new ChessBoard();
+            for (int row = 7; row >= 0; row--) {
+                int col = 0;
+                while (col < 8) {
+                    char c = next("piece placement");
+                    if (c >= '1' && c <= '8') {
+                        col += c - '0';
+                        continue;
+                    }
+                    int letter = LETTERS.indexOf(c);
+                    if (letter < 0) {
+                        throw error("unexpected '" + c + "' in piece placement");
+                    }
+                    board.setSquare(row * 8 + col, letter + 1);
+                    col++;
+                }
+                if (col != 8) {
+                    throw error("row " + (row + 1) + " does not have 8 squares");
+                }
+                if (row > 0 && next("piece placement") != '/') {
+                    throw error("expected '/' after row " + (row + 1));
+                }
+            }
+
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+
+            field("side to move");
+            char side = next("side to move");
+            if (side != 'w' && side != 'b') {
+                throw error("side to move must be w or b");
+            }
+            game.setTeamTurn(side == 'w' ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK);
+
+            field("castling rights");
+            int castling = 0;
+            if (peek() == '-') {
+                at++;
+            } else {
+                while (at < text.length() && text.charAt(at) != ' ') {
+                    int right = "KQkq".indexOf(text.charAt(at++));
+                    if (right < 0) {
+                        throw error("castling rights must be - or letters from KQkq");
+                    }
+                    if ((castling & 1 << right) != 0) {
+                        throw error("castling right " + text.charAt(at - 1) + " given twice");
+                    }
+                    castling |= 1 << right;
+                }
+            }
+            castling &= GameState.castlingRightsOf(board);
+
+            field("en passant square");
+            int enPassant = 0;
+            if (peek() == '-') {
+                at++;
+            } else {
+                char file = next("en passant square");
+                char rank = next("en passant square");
+                if (file < 'a' || file > 'h' || rank != (side == 'w' ? '6' : '3')) {
+                    throw error("en passant square must be - or a square on row " + (side == 'w' ? 6 : 3));
+                }
+                enPassant = (rank - '1') * 8 + (file - 'a');
+                if (!GameState.isEnPassantTarget(board, game.getTeamTurn(), enPassant)) {
+                    throw error("no pawn just passed the en passant square " + file + rank);
+                }
+                if (!GameState.isCapturable(board, game.getTeamTurn(), enPassant)) {
+                    enPassant = 0;
+                }
+            }
+
+            // the two counters are often left off
+            int halfmove = 0;
+            skipSpaces();
+            if (at < text.length()) {
+                halfmove = number("halfmove clock");
+                skipSpaces();
+                if (at < text.length()) {
+                    game.fullmove = Math.max(1, number("fullmove number"));
+                }
+            }
+            skipSpaces();
+            if (at < text.length()) {
+                throw error("unexpected text after the fullmove number");
+            }
+            game.state = GameState.of(castling, enPassant, halfmove);
+            return game;
+        }
+
+        private char peek() {
+            return at < text.length() ? text.charAt(at) : 0;
+        }
+
+        private char next(String field) {
+            if (at >= text.length()) {
+                throw error("text ends in the " + field);
+            }
+            return text.charAt(at++);
+        }
+
+        private void field(String name) {
+            if (peek() != ' ') {
+                throw error("expected a space before the " + name);
+            }
+            skipSpaces();
+        }
+
+        private void skipSpaces() {
+            while (at < text.length() && text.charAt(at) == ' ') {
+                at++;
+            }
+        }
+
+        private int number(String field) {
+            int value = 0;
+            int start = at;
+            while (at < text.length() && text.charAt(at) >= '0' && text.charAt(at) <= '9') {
+                value = Math.min(value * 10 + text.charAt(at++) - '0', 1 << 20);
+            }
+            if (at == start) {
+                throw error(field + " must be a number");
+            }
+            return value;
+        }
+
+        private IllegalArgumentException error(String problem) {
+            return new IllegalArgumentException("Bad FEN at index " + at + ": " + problem);
+        }
+    }
+
+    /**
+     * Presents bytes of a buffer as characters without copying them
+     */
+    private static final class AsciiView implements CharSequence {
+        private final ByteBuffer bytes;
+        private final int start;
+        private final int end;
+
+        AsciiView(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new AsciiView(bytes, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            byte copy[] = new byte[length()];
+            bytes.get(start, copy);
+            return new String(copy, StandardCharsets.US_ASCII);
+        }
+    }
+}
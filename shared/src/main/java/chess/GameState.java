@@ -0,0 +1,135 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * The rules state of a position that the board alone does not show, packed
+ * into one int kept by {@link ChessGame}.
+ * <p>
+ * Layout, low bit first: 4 bits castling rights ({@link #WHITE_KINGSIDE},
+ * {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE}, {@link #BLACK_QUEENSIDE}),
+ * 6 bits en passant target square (0 for none, which is safe because square
+ * 0 can never be a target), then 13 bits halfmove clock: plies since the last
+ * capture or pawn move, saturating at {@link #MAX_HALFMOVE}. The whole state
+ * fits in the 23 bits {@link ChessGame} keeps for it in each undo record.
+ */
+final class GameState {
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    static final int CASTLING_MASK = 15;
+
+    private static final int EN_PASSANT_SHIFT = 4;
+    private static final int HALFMOVE_SHIFT = 10;
+    static final int MAX_HALFMOVE = (1 << 13) - 1;
+
+    /** Castling rights and en passant target, the part of the state that makes positions differ */
+    static final int POSITION_MASK = (1 << HALFMOVE_SHIFT) - 1;
+
+    // king and rook home squares, by color ordinal
+    static final int KING_HOME[] = {4, 60};
+    static final int KINGSIDE_ROOK_HOME[] = {7, 63};
+    static final int QUEENSIDE_ROOK_HOME[] = {0, 56};
+
+    // rights that survive a move from or to each square
+    private static final int KEPT_RIGHTS[] = new int[64];
+
+    static {
+        Arrays.fill(KEPT_RIGHTS, CASTLING_MASK);
+        KEPT_RIGHTS[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        KEPT_RIGHTS[7] &= ~WHITE_KINGSIDE;
+        KEPT_RIGHTS[0] &= ~WHITE_QUEENSIDE;
+        KEPT_RIGHTS[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        KEPT_RIGHTS[63] &= ~BLACK_KINGSIDE;
+        KEPT_RIGHTS[56] &= ~BLACK_QUEENSIDE;
+    }
+
+    private GameState() {
+    }
+
+    static int of(int castling, int enPassant, int halfmove) {
+        return castling | (enPassant << EN_PASSANT_SHIFT) | (Math.min(halfmove, MAX_HALFMOVE) << HALFMOVE_SHIFT);
+    }
+
+    static int castling(int state) {
+        return state & CASTLING_MASK;
+    }
+
+    /**
+     * @return the square a pawn capturing en passant would land on, or 0 if
+     * there is none
+     */
+    static int enPassant(int state) {
+        return (state >>> EN_PASSANT_SHIFT) & 63;
+    }
+
+    /**
+     * @return True if the square can be the en passant target with the given
+     * team to move: it is on the row a double step passes, empty, with an
+     * enemy pawn just past it and the square that pawn came from empty
+     */
+    static boolean isEnPassantTarget(ChessBoard board, ChessGame.TeamColor mover, int square) {
+        boolean white = mover == ChessGame.TeamColor.WHITE;
+        if (square < 0 || square > 63 || square >>> 3 != (white ? 5 : 2)) {
+            return false;
+        }
+        int pawn_square = white ? square - 8 : square + 8;
+        int origin = white ? square + 8 : square - 8;
+        long pawns = board.pieces(ChessGame.opponent(mover), ChessPiece.PieceType.PAWN);
+        return (board.occupied() & (1L << square | 1L << origin)) == 0 && (pawns & 1L << pawn_square) != 0;
+    }
+
+    /**
+     * @return True if a pawn of the team to move stands ready to capture onto
+     * the square. Targets no pawn can use are not stored, so positions that
+     * only differ by one hash the same.
+     */
+    static boolean isCapturable(ChessBoard board, ChessGame.TeamColor mover, int square) {
+        long pawns = board.pieces(mover, ChessPiece.PieceType.PAWN);
+        return (MoveGenerator.PAWN_ATTACKS[ChessGame.opponent(mover).ordinal()][square] & pawns) != 0;
+    }
+
+    static int halfmove(int state) {
+        return state >>> HALFMOVE_SHIFT;
+    }
+
+    static int kingside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    static int queenside(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+
+    /**
+     * @return the castling rights left after a move between two squares.
+     * Moving the king or a rook from its home square, or capturing a rook on
+     * its home square, loses the matching rights for good.
+     */
+    static int keptRights(int castling, int from, int to) {
+        return castling & KEPT_RIGHTS[from] & KEPT_RIGHTS[to];
+    }
+
+    /**
+     * Rights for a board set up by hand: a side may castle on a wing when its
+     * king and that rook are still on their home squares.
+     */
+    static int castlingRightsOf(ChessBoard board) {
+        int rights = 0;
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            int side = color.ordinal();
+            if (board.codeAt(KING_HOME[side]) != ChessPiece.code(ChessPiece.of(color, ChessPiece.PieceType.KING))) {
+                continue;
+            }
+            int rook = ChessPiece.code(ChessPiece.of(color, ChessPiece.PieceType.ROOK));
+            if (board.codeAt(KINGSIDE_ROOK_HOME[side]) == rook) {
+                rights |= kingside(color);
+            }
+            if (board.codeAt(QUEENSIDE_ROOK_HOME[side]) == rook) {
+                rights |= queenside(color);
+            }
+        }
+        return rights;
+    }
+}
@@ -0,0 +1,107 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Magic bitboard attack tables for the sliding pieces. For every square the
+ * occupied squares that can block the piece are multiplied by a "magic"
+ * number so that their high bits form a perfect index into a table of
+ * precomputed attack sets. A bishop or rook lookup is then one mask, one
+ * multiply, one shift and one array read, whatever the occupancy.
+ * <p>
+ * The magics are searched for once when the class loads, using a fixed seed
+ * so the tables come out the same on every run.
+ */
+final class MagicAttacks {
+    private static final long EDGE_ROWS = 0xFF000000000000FFL;
+    private static final long EDGE_COLUMNS = 0x8181818181818181L;
+
+    private static final Table BISHOP = new Table(Bitboards.BISHOP_DIRECTIONS, false);
+    private static final Table ROOK = new Table(Bitboards.ROOK_DIRECTIONS, true);
+
+    private MagicAttacks() {
+    }
+
+    static long bishopAttacks(int square, long occupied) {
+        return BISHOP.attacks(square, occupied);
+    }
+
+    static long rookAttacks(int square, long occupied) {
+        return ROOK.attacks(square, occupied);
+    }
+
+    static long queenAttacks(int square, long occupied) {
+        return BISHOP.attacks(square, occupied) | ROOK.attacks(square, occupied);
+    }
+
+    private static final class Table {
+        private final long masks[] = new long[64];
+        private final long magics[] = new long[64];
+        private final int shifts[] = new int[64];
+        private final int offsets[] = new int[64];
+        private final long attacks[];
+
+        Table(int directions[][], boolean rook) {
+            int size = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                // a blocker on the last square of a ray never changes the attack set
+                long edges = rook ? (EDGE_ROWS & ~rowMask(sq)) | (EDGE_COLUMNS & ~columnMask(sq))
+                        : EDGE_ROWS | EDGE_COLUMNS;
+                masks[sq] = Bitboards.slidingAttacks(sq, 0, directions) & ~edges;
+                shifts[sq] = 64 - Long.bitCount(masks[sq]);
+                offsets[sq] = size;
+                size += 1 << Long.bitCount(masks[sq]);
+            }
+            attacks = new long[size];
+
+            SplittableRandom random = new SplittableRandom(rook ? 0x5EED_0001L : 0x5EED_0002L);
+            long blockers[] = new long[4096];
+            long reference[] = new long[4096];
+            int epoch[] = new int[4096];
+            int attempt = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                // enumerate every subset of the mask (carry-rippler)
+                int n = 0;
+                long subset = 0;
+                do {
+                    blockers[n] = subset;
+                    reference[n] = Bitboards.slidingAttacks(sq, subset, directions);
+                    n++;
+                    subset = (subset - masks[sq]) & masks[sq];
+                } while (subset != 0);
+
+                search:
+                while (true) {
+                    long magic = random.nextLong() & random.nextLong() & random.nextLong();
+                    if (Long.bitCount((masks[sq] * magic) & 0xFF00000000000000L) < 6) {
+                        continue;
+                    }
+                    attempt++;
+                    for (int i = 0; i < n; i++) {
+                        int index = (int) ((blockers[i] * magic) >>> shifts[sq]);
+                        if (epoch[index] != attempt) {
+                            epoch[index] = attempt;
+                            attacks[offsets[sq] + index] = reference[i];
+                        } else if (attacks[offsets[sq] + index] != reference[i]) {
+                            continue search;
+                        }
+                    }
+                    magics[sq] = magic;
+                    break;
+                }
+            }
+        }
+
+        long attacks(int square, long occupied) {
+            return attacks[offsets[square] + (int) (((occupied & masks[square]) * magics[square]) >>> shifts[square])];
+        }
+
+        private static long rowMask(int square) {
+            return 0xFFL << (square & ~7);
+        }
+
+        private static long columnMask(int square) {
+            return 0x0101010101010101L << (square & 7);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package chess;
+
+/**
+ * Generates pseudo-legal moves straight from the {@link ChessBoard} masks into
+ * caller-owned int arrays of {@link PackedMove}s. Nothing is allocated while
+ * generating; moves only become {@link ChessMove} objects when they leave
+ * through the public collection based methods.
+ * <p>
+ * Moves that leave the mover's own king in check are still produced by
+ * {@link #generate}; {@link #generateLegal} only produces legal ones. Castling
+ * and en passant depend on the game's history, so only the methods that take
+ * a {@link GameState} word produce them.
+ */
+final class MoveGenerator {
+    static final long KNIGHT_ATTACKS[] = new long[64];
+    static final long KING_ATTACKS[] = new long[64];
+    // indexed by color ordinal, the squares a pawn of that color attacks
+    static final long PAWN_ATTACKS[][] = new long[2][64];
+    // squares strictly between two squares on a shared row, column or diagonal, else 0
+    static final long BETWEEN[][] = new long[64][64];
+    // the whole row, column or diagonal through two squares, else 0
+    static final long LINE[][] = new long[64][64];
+
+    private static final ChessPiece.PieceType PROMOTIONS[] = {ChessPiece.PieceType.QUEEN,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT};
+
+    static {
+        int knight[][] = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {-1, 2}, {1, -2}, {-1, -2}};
+        int king[][] = {{1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}, {-1, -1}, {-1, 0}, {-1, 1}};
+        for (int sq = 0; sq < 64; sq++) {
+            KNIGHT_ATTACKS[sq] = Bitboards.stepAttacks(sq, knight);
+            KING_ATTACKS[sq] = Bitboards.stepAttacks(sq, king);
+            PAWN_ATTACKS[ChessGame.TeamColor.WHITE.ordinal()][sq] = Bitboards.stepAttacks(sq, new int[][]{{1, -1}, {1, 1}});
+            PAWN_ATTACKS[ChessGame.TeamColor.BLACK.ordinal()][sq] = Bitboards.stepAttacks(sq, new int[][]{{-1, -1}, {-1, 1}});
+            for (int[] dir : king) {
+                long full = Bitboards.slidingAttacks(sq, 0, new int[][]{dir, {-dir[0], -dir[1]}}) | Bitboards.bit(sq);
+                long between = 0;
+                int y = (sq >>> 3) + dir[0];
+                int x = (sq & 7) + dir[1];
+                while (y >= 0 && y < 8 && x >= 0 && x < 8) {
+                    BETWEEN[sq][y * 8 + x] = between;
+                    LINE[sq][y * 8 + x] = full;
+                    between |= Bitboards.bit(y * 8 + x);
+                    y += dir[0];
+                    x += dir[1];
+                }
+            }
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Checks whether any piece of a color attacks a square by looking outward
+     * from the square with each piece type's attack pattern. Stops at the
+     * first attacker found.
+     */
+    static boolean isAttacked(ChessBoard board, int square, ChessGame.TeamColor by) {
+        return isAttacked(board, square, by, board.occupied());
+    }
+
+    /**
+     * Same as {@link #isAttacked(ChessBoard, int, ChessGame.TeamColor)}, but slides
+     * through the given occupancy instead of the board's
+     */
+    static boolean isAttacked(ChessBoard board, int square, ChessGame.TeamColor by, long occupied) {
+        // a pawn of color c on s attacks t exactly when a pawn of the other color on t attacks s
+        ChessGame.TeamColor other = ChessGame.opponent(by);
+        if ((PAWN_ATTACKS[other.ordinal()][square] & board.pieces(by, ChessPiece.PieceType.PAWN)) != 0) {
+            return true;
+        }
+        if ((KNIGHT_ATTACKS[square] & board.pieces(by, ChessPiece.PieceType.KNIGHT)) != 0) {
+            return true;
+        }
+        if ((KING_ATTACKS[square] & board.pieces(by, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = board.pieces(by, ChessPiece.PieceType.QUEEN);
+        long diagonal = board.pieces(by, ChessPiece.PieceType.BISHOP) | queens;
+        if (diagonal != 0 && (MagicAttacks.bishopAttacks(square, occupied) & diagonal) != 0) {
+            return true;
+        }
+        long straight = board.pieces(by, ChessPiece.PieceType.ROOK) | queens;
+        return straight != 0 && (MagicAttacks.rookAttacks(square, occupied) & straight) != 0;
+    }
+
+    /**
+     * @return mask of every piece of a color that attacks a square
+     */
+    static long attackers(ChessBoard board, int square, ChessGame.TeamColor by) {
+        long occupied = board.occupied();
+        long queens = board.pieces(by, ChessPiece.PieceType.QUEEN);
+        return (PAWN_ATTACKS[ChessGame.opponent(by).ordinal()][square] & board.pieces(by, ChessPiece.PieceType.PAWN))
+                | (KNIGHT_ATTACKS[square] & board.pieces(by, ChessPiece.PieceType.KNIGHT))
+                | (KING_ATTACKS[square] & board.pieces(by, ChessPiece.PieceType.KING))
+                | (MagicAttacks.bishopAttacks(square, occupied) & (board.pieces(by, ChessPiece.PieceType.BISHOP) | queens))
+                | (MagicAttacks.rookAttacks(square, occupied) & (board.pieces(by, ChessPiece.PieceType.ROOK) | queens));
+    }
+
+    /**
+     * Writes only the legal moves of the pieces of one color that stand on the
+     * given squares. Checkers, pinned pieces and the squares that block or
+     * capture a checker are worked out once up front, so each piece's targets
+     * are masked down to legal ones instead of trying every move on the board.
+     * <p>
+     * A side with no king has every pseudo-legal move allowed. A side with
+     * more than one king (only possible on hand-built boards) falls back to
+     * trying each move.
+     *
+     * @param fromMask squares whose pieces to generate for
+     * @return the new number of moves in the buffer
+     */
+    static int generateLegal(ChessBoard board, ChessGame.TeamColor color, long fromMask, int moves[], int count) {
+        return generateLegal(board, color, 0, fromMask, moves, count);
+    }
+
+    /**
+     * Same as {@link #generateLegal(ChessBoard, ChessGame.TeamColor, long, int[], int)},
+     * plus the castling and en passant moves the {@link GameState} allows
+     *
+     * @param state the game's {@link GameState} word
+     */
+    static int generateLegal(ChessBoard board, ChessGame.TeamColor color, int state, long fromMask,
+                             int moves[], int count) {
+        fromMask &= board.colorMask(color);
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        if (kings == 0) {
+            for (long left = fromMask; left != 0; left &= left - 1) {
+                int from = Long.numberOfTrailingZeros(left);
+                count = generate(board, from, color, board.pieceAt(from).getPieceType(), -1L, moves, count);
+            }
+            return enPassantMoves(board, color, state, fromMask, -1, moves, count);
+        }
+        if (Long.bitCount(kings) > 1) {
+            return filterLegal(board, color, state, fromMask, moves, count);
+        }
+
+        ChessGame.TeamColor enemy = ChessGame.opponent(color);
+        int king = Long.numberOfTrailingZeros(kings);
+        long own = board.colorMask(color);
+        long occupied = board.occupied();
+
+        if ((fromMask & kings) != 0) {
+            long withoutKing = occupied & ~kings;
+            for (long targets = KING_ATTACKS[king] & ~own; targets != 0; targets &= targets - 1) {
+                int to = Long.numberOfTrailingZeros(targets);
+                if (!isAttacked(board, to, enemy, withoutKing)) {
+                    int flags = (occupied & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0;
+                    moves[count++] = PackedMove.of(king, to, null, flags);
+                }
+            }
+        }
+
+        long checkers = attackers(board, king, enemy);
+        if (Long.bitCount(checkers) > 1) {
+            return count;
+        }
+        if (checkers == 0 && (fromMask & kings) != 0 && GameState.castling(state) != 0) {
+            count = castlingMoves(board, color, state, king, moves, count);
+        }
+        long evasions = -1L;
+        if (checkers != 0) {
+            evasions = checkers | BETWEEN[king][Long.numberOfTrailingZeros(checkers)];
+        }
+
+        long pinned = 0;
+        long enemies = board.colorMask(enemy);
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (MagicAttacks.rookAttacks(king, enemies) & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (MagicAttacks.bishopAttacks(king, enemies) & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = BETWEEN[king][Long.numberOfTrailingZeros(snipers)] & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & own;
+            }
+        }
+
+        for (long left = fromMask & ~kings; left != 0; left &= left - 1) {
+            int from = Long.numberOfTrailingZeros(left);
+            long allowed = evasions;
+            if ((pinned & Bitboards.bit(from)) != 0) {
+                allowed &= LINE[king][from];
+            }
+            count = generate(board, from, color, board.pieceAt(from).getPieceType(), allowed, moves, count);
+        }
+        return enPassantMoves(board, color, state, fromMask, king, moves, count);
+    }
+
+    /**
+     * Writes the castling moves of a king that is not in check: the rights
+     * must still be held, the rook must be home, the squares between them
+     * empty, and the two squares the king crosses not attacked.
+     */
+    private static int castlingMoves(ChessBoard board, ChessGame.TeamColor color, int state, int king,
+                                     int moves[], int count) {
+        int side = color.ordinal();
+        if (king != GameState.KING_HOME[side]) {
+            return count;
+        }
+        ChessGame.TeamColor enemy = ChessGame.opponent(color);
+        long occupied = board.occupied();
+        long rooks = board.pieces(color, ChessPiece.PieceType.ROOK);
+        int rights = GameState.castling(state);
+        int rook = GameState.KINGSIDE_ROOK_HOME[side];
+        if ((rights & GameState.kingside(color)) != 0 && (rooks & Bitboards.bit(rook)) != 0
+                && (BETWEEN[king][rook] & occupied) == 0
+                && !isAttacked(board, king + 1, enemy) && !isAttacked(board, king + 2, enemy)) {
+            moves[count++] = PackedMove.of(king, king + 2, null, PackedMove.CASTLE);
+        }
+        rook = GameState.QUEENSIDE_ROOK_HOME[side];
+        if ((rights & GameState.queenside(color)) != 0 && (rooks & Bitboards.bit(rook)) != 0
+                && (BETWEEN[king][rook] & occupied) == 0
+                && !isAttacked(board, king - 1, enemy) && !isAttacked(board, king - 2, enemy)) {
+            moves[count++] = PackedMove.of(king, king - 2, null, PackedMove.CASTLE);
+        }
+        return count;
+    }
+
+    /**
+     * Writes the en passant captures onto the state's target square by pawns
+     * on the given squares
+     *
+     * @param king the mover's king square to keep safe, or -1 to skip the check
+     */
+    private static int enPassantMoves(ChessBoard board, ChessGame.TeamColor color, int state, long fromMask, int king,
+                                      int moves[], int count) {
+        int target = GameState.enPassant(state);
+        if (target == 0) {
+            return count;
+        }
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        // white captures onto row 6 and black onto row 3, so the target says who may capture
+        if (Bitboards.row(target) != (white ? 6 : 3)) {
+            return count;
+        }
+        ChessGame.TeamColor enemy = ChessGame.opponent(color);
+        int victim = target + (white ? -8 : 8);
+        if (board.codeAt(target) != 0 || (board.pieces(enemy, ChessPiece.PieceType.PAWN) & Bitboards.bit(victim)) == 0) {
+            return count;
+        }
+        long pawns = PAWN_ATTACKS[enemy.ordinal()][target] & board.pieces(color, ChessPiece.PieceType.PAWN) & fromMask;
+        for (; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            if (king < 0 || enPassantIsSafe(board, from, target, victim, king, enemy)) {
+                moves[count++] = PackedMove.of(from, target, null, PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * En passant takes two pieces off one row at once, which the pin masks
+     * do not cover, and it is rare enough to simply try on the board.
+     */
+    private static boolean enPassantIsSafe(ChessBoard board, int from, int target, int victim, int king,
+                                           ChessGame.TeamColor enemy) {
+        int pawn = board.codeAt(from);
+        int captured = board.codeAt(victim);
+        board.setSquare(from, 0);
+        board.setSquare(victim, 0);
+        board.setSquare(target, pawn);
+        boolean safe = !isAttacked(board, king, enemy);
+        board.setSquare(target, 0);
+        board.setSquare(victim, captured);
+        board.setSquare(from, pawn);
+        return safe;
+    }
+
+    /**
+     * The slow way to find legal moves: play each pseudo-legal move on the
+     * board and keep it if the mover's king is not attacked afterwards. Kept
+     * to verify {@link #generateLegal} against.
+     *
+     * @return the new number of moves in the buffer
+     */
+    static int filterLegal(ChessBoard board, ChessGame.TeamColor color, int state, long fromMask,
+                           int moves[], int count) {
+        int start = count;
+        fromMask &= board.colorMask(color);
+        for (long left = fromMask; left != 0; left &= left - 1) {
+            int from = Long.numberOfTrailingZeros(left);
+            count = generate(board, from, color, board.pieceAt(from).getPieceType(), -1L, moves, count);
+        }
+        count = enPassantMoves(board, color, state, fromMask, -1, moves, count);
+        long kings = board.pieces(color, ChessPiece.PieceType.KING);
+        if (Long.bitCount(kings) == 1 && (fromMask & kings) != 0
+                && !isAttacked(board, Long.numberOfTrailingZeros(kings), ChessGame.opponent(color))) {
+            count = castlingMoves(board, color, state, Long.numberOfTrailingZeros(kings), moves, count);
+        }
+        int kept = start;
+        for (int i = start; i < count; i++) {
+            int from = PackedMove.from(moves[i]);
+            int to = PackedMove.to(moves[i]);
+            // the pawn taken en passant stands beside the capturing pawn, not on its target
+            int victim = PackedMove.hasFlag(moves[i], PackedMove.EN_PASSANT) ? (from & 56) | (to & 7) : to;
+            int moving = board.codeAt(from);
+            int captured = board.codeAt(victim);
+            board.setSquare(from, 0);
+            board.setSquare(victim, 0);
+            board.setSquare(to, moving);
+            boolean safe = true;
+            for (long left = board.pieces(color, ChessPiece.PieceType.KING); left != 0 && safe; left &= left - 1) {
+                safe = !isAttacked(board, Long.numberOfTrailingZeros(left), ChessGame.opponent(color));
+            }
+            board.setSquare(to, 0);
+            board.setSquare(victim, captured);
+            board.setSquare(from, moving);
+            if (safe) {
+                moves[kept++] = moves[i];
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Writes the pseudo-legal moves of a piece standing on a square.
+     *
+     * @param moves buffer to write into
+     * @param count number of moves already in the buffer
+     * @return the new number of moves in the buffer
+     */
+    static int generate(ChessBoard board, int from, ChessGame.TeamColor color, ChessPiece.PieceType type,
+                        int moves[], int count) {
+        return generate(board, from, color, type, -1L, moves, count);
+    }
+
+    /**
+     * Same as {@link #generate(ChessBoard, int, ChessGame.TeamColor, ChessPiece.PieceType, int[], int)},
+     * but only keeps moves that end on one of the allowed squares
+     */
+    static int generate(ChessBoard board, int from, ChessGame.TeamColor color, ChessPiece.PieceType type,
+                        long allowed, int moves[], int count) {
+        long targets = allowed & ~board.colorMask(color);
+        long enemy = board.occupied() & targets;
+        switch (type) {
+            case KING: return addTargets(from, KING_ATTACKS[from] & targets, enemy, moves, count);
+            case KNIGHT: return addTargets(from, KNIGHT_ATTACKS[from] & targets, enemy, moves, count);
+            case BISHOP: return addTargets(from, MagicAttacks.bishopAttacks(from, board.occupied()) & targets, enemy, moves, count);
+            case ROOK: return addTargets(from, MagicAttacks.rookAttacks(from, board.occupied()) & targets, enemy, moves, count);
+            case QUEEN: return addTargets(from, MagicAttacks.queenAttacks(from, board.occupied()) & targets, enemy, moves, count);
+            case PAWN: return pawnMoves(board, from, color, targets, enemy, moves, count);
+        }
+        throw new RuntimeException("Not implemented");
+    }
+
+    /**
+     * Writes the pseudo-legal moves of every piece of one color.
+     *
+     * @return the new number of moves in the buffer
+     */
+    static int generateAll(ChessBoard board, ChessGame.TeamColor color, int moves[], int count) {
+        for (long left = board.colorMask(color); left != 0; left &= left - 1) {
+            int from = Long.numberOfTrailingZeros(left);
+            count = generate(board, from, color, board.pieceAt(from).getPieceType(), moves, count);
+        }
+        return count;
+    }
+
+    private static int addTargets(int from, long targets, long enemy, int moves[], int count) {
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves[count++] = PackedMove.of(from, to, null, (enemy & Bitboards.bit(to)) != 0 ? PackedMove.CAPTURE : 0);
+        }
+        return count;
+    }
+
+    private static int addPawnMove(int from, int to, int flags, int moves[], int count) {
+        int row = Bitboards.row(to);
+        if (row == 8 || row == 1) {
+            for (ChessPiece.PieceType promo : PROMOTIONS) {
+                moves[count++] = PackedMove.of(from, to, promo, flags);
+            }
+        } else {
+            moves[count++] = PackedMove.of(from, to, null, flags);
+        }
+        return count;
+    }
+
+    private static int pawnMoves(ChessBoard board, int from, ChessGame.TeamColor color, long targets, long enemy,
+                                 int moves[], int count) {
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        int step = white ? 8 : -8;
+        int startRow = white ? 2 : 7;
+        int lastRow = white ? 8 : 1;
+        int row = Bitboards.row(from);
+        if (row == lastRow) {
+            return count;
+        }
+        long empty = ~board.occupied();
+        int one = from + step;
+        if ((empty & Bitboards.bit(one)) != 0) {
+            if ((targets & Bitboards.bit(one)) != 0) {
+                count = addPawnMove(from, one, 0, moves, count);
+            }
+            int two = one + step;
+            if (row == startRow && (empty & targets & Bitboards.bit(two)) != 0) {
+                count = addPawnMove(from, two, PackedMove.DOUBLE_PUSH, moves, count);
+            }
+        }
+        for (long hits = PAWN_ATTACKS[color.ordinal()][from] & enemy; hits != 0; hits &= hits - 1) {
+            count = addPawnMove(from, Long.numberOfTrailingZeros(hits), PackedMove.CAPTURE, moves, count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,88 @@
+package chess;
+
+/**
+ * Encodes a chess move in a single int so move lists can live in primitive
+ * arrays instead of collections of {@link ChessMove} objects.
+ * <p>
+ * Layout, low bit first: 6 bits start square, 6 bits end square, 3 bits
+ * promotion piece (0 for none, otherwise {@code PieceType.ordinal() + 1})
+ * and then the flag bits. Squares are numbered 0-63 with square 0 at row 1,
+ * column 1 and square 63 at row 8, column 8.
+ */
+public final class PackedMove {
+    public static final int CAPTURE = 1 << 15;
+    public static final int DOUBLE_PUSH = 1 << 16;
+    /** A king move of two squares; the rook move is implied */
+    public static final int CASTLE = 1 << 17;
+    /** A pawn capture onto the en passant square; always set together with {@link #CAPTURE} */
+    public static final int EN_PASSANT = 1 << 18;
+
+    /**
+     * The start, end and promotion bits, which are all a {@link ChessMove} holds
+     */
+    public static final int MOVE_MASK = (1 << 15) - 1;
+
+    /**
+     * Most moves a single piece can have (a queen in the middle of an open board)
+     */
+    public static final int MAX_PIECE_MOVES = 32;
+
+    /**
+     * Upper bound on the number of moves one side can have in any position
+     * reachable in a real game (the known maximum is 218)
+     */
+    public static final int MAX_POSITION_MOVES = 256;
+
+    private static final ChessPiece.PieceType TYPES[] = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        int promo = promotion == null ? 0 : promotion.ordinal() + 1;
+        return from | (to << 6) | (promo << 12) | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * @return the promotion piece of the move, or null if it is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promo = (move >>> 12) & 7;
+        return promo == 0 ? null : TYPES[promo - 1];
+    }
+
+    public static boolean hasFlag(int move, int flag) {
+        return (move & flag) != 0;
+    }
+
+    /**
+     * @return the square number of a position, as used in packed moves
+     */
+    public static int square(ChessPosition position) {
+        return Bitboards.square(position);
+    }
+
+    public static ChessPosition position(int square) {
+        return ChessPosition.of(square);
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return ChessMove.of(move);
+    }
+
+    /**
+     * Packs a {@link ChessMove}. Flags are not known from the move alone, so
+     * none are set.
+     */
+    public static int fromChessMove(ChessMove move) {
+        return of(square(move.getStartPosition()), square(move.getEndPosition()), move.getPromotionPiece(), 0);
+    }
+}
@@ -0,0 +1,142 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth ("perft").
+ * The counts for well known positions are published, so comparing against
+ * them checks the move generator, and timing them measures its speed.
+ * <p>
+ * Moves are played on a copy of the game with {@link ChessGame#makeMove(int)}
+ * and taken back with {@link ChessGame#unmakeMove()}, so none of these
+ * methods change the game they are given.
+ */
+public class Perft {
+    private static final int MAX_DEPTH = 64;
+
+    private Perft() {
+    }
+
+    /**
+     * @return the number of legal move sequences of exactly the given length
+     */
+    public static long perft(ChessGame game, int depth) {
+        return count(new ChessGame(game), depth, new int[MAX_DEPTH][]);
+    }
+
+    /**
+     * Splits the count by root move, which is how a wrong count is usually
+     * tracked down to the move that causes it.
+     *
+     * @return each legal root move with the number of leaves below it
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        ChessGame copy = new ChessGame(game);
+        int buffers[][] = new int[MAX_DEPTH][];
+        int moves[] = new int[PackedMove.MAX_POSITION_MOVES];
+        int n = MoveGenerator.generateLegal(copy.board, copy.curr_turn, copy.state, -1L, moves, 0);
+        Map<ChessMove, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            copy.makeMove(moves[i]);
+            result.put(PackedMove.toChessMove(moves[i]), count(copy, depth - 1, buffers));
+            copy.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #perft}, but counts the subtree of each root move as its
+     * own task in the given pool
+     */
+    public static long parallelPerft(ChessGame game, int depth, ForkJoinPool pool) {
+        if (depth <= 1) {
+            return perft(game, depth);
+        }
+        int moves[] = new int[PackedMove.MAX_POSITION_MOVES];
+        int n = MoveGenerator.generateLegal(game.board, game.curr_turn, game.state, -1L, moves, 0);
+        List<RecursiveTask<Long>> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int move = moves[i];
+            tasks.add(new RecursiveTask<>() {
+                @Override
+                protected Long compute() {
+                    ChessGame copy = new ChessGame(game);
+                    copy.makeMove(move);
+                    return count(copy, depth - 1, new int[MAX_DEPTH][]);
+                }
+            });
+        }
+        return pool.invoke(new RecursiveTask<>() {
+            @Override
+            protected Long compute() {
+                long nodes = 0;
+                for (RecursiveTask<Long> task : invokeAll(tasks)) {
+                    nodes += task.join();
+                }
+                return nodes;
+            }
+        });
+    }
+
+    private static long count(ChessGame game, int depth, int buffers[][]) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (buffers[depth] == null) {
+            buffers[depth] = new int[PackedMove.MAX_POSITION_MOVES];
+        }
+        int moves[] = buffers[depth];
+        int n = MoveGenerator.generateLegal(game.board, game.curr_turn, game.state, -1L, moves, 0);
+        if (depth == 1) {
+            return n;
+        }
+        long nodes = 0;
+        for (int i = 0; i < n; i++) {
+            game.makeMove(moves[i]);
+            nodes += count(game, depth - 1, buffers);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft from the starting position and prints the node count and
+     * speed. Arguments: depth, then optionally "divide" or "parallel".
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        String mode = args.length > 1 ? args[1] : "";
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        long start = System.nanoTime();
+        long nodes;
+        switch (mode) {
+            case "divide":
+                nodes = 0;
+                for (Map.Entry<ChessMove, Long> entry : divide(game, depth).entrySet()) {
+                    ChessMove move = entry.getKey();
+                    System.out.println(move.getStartPosition() + " -> " + move.getEndPosition()
+                            + (move.getPromotionPiece() == null ? "" : " " + move.getPromotionPiece())
+                            + ": " + entry.getValue());
+                    nodes += entry.getValue();
+                }
+                break;
+            case "parallel":
+                nodes = parallelPerft(game, depth, ForkJoinPool.commonPool());
+                break;
+            default:
+                nodes = perft(game, depth);
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.println("Depth " + depth + ": " + nodes + " nodes in " + nanos / 1_000_000 + " ms ("
+                + nodes * 1_000_000_000L / nanos + " nodes/s)");
+    }
+}
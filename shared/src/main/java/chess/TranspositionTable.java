@@ -0,0 +1,80 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Remembers search results by position key so a position reached again,
+ * by another move order, in the next deepening iteration or by another
+ * search thread, can reuse them.
+ * <p>
+ * Each entry is two longs side by side in one array: the key XORed with the
+ * data word, then the data word itself. The data word holds bits 0-14 best
+ * move ({@link PackedMove#MOVE_MASK} part), bits 16-31 score, bits 32-39
+ * depth and bits 40-41 bound type. Threads read and write entries without
+ * locking; if two writes to a slot interleave, the two halves no longer XOR
+ * back to the key and the probe simply misses. A slot is replaced when a
+ * different position lands on it, or when the same position is searched at
+ * least as deep.
+ */
+final class TranspositionTable {
+    static final int EXACT = 1;
+    static final int LOWER = 2;
+    static final int UPPER = 3;
+
+    private final long entries[];
+    private final int mask;
+
+    /**
+     * @param megabytes memory to use, rounded down to a power-of-two entry count
+     */
+    TranspositionTable(int megabytes) {
+        int entries = Integer.highestOneBit(Math.max(1, megabytes * (1 << 20) / 16));
+        this.entries = new long[entries * 2];
+        mask = entries - 1;
+    }
+
+    /**
+     * @return the data word stored for the key, or 0 if there is none
+     */
+    long probe(long key) {
+        int slot = ((int) key & mask) * 2;
+        long data = entries[slot + 1];
+        return (entries[slot] ^ data) == key ? data : 0;
+    }
+
+    void store(long key, int move, int score, int depth, int bound) {
+        int slot = ((int) key & mask) * 2;
+        long old = entries[slot + 1];
+        if ((entries[slot] ^ old) == key && depth(old) > depth) {
+            return;
+        }
+        long data = pack(move, score, depth, bound);
+        entries[slot] = key ^ data;
+        entries[slot + 1] = data;
+    }
+
+    void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    static long pack(int move, int score, int depth, int bound) {
+        return (move & PackedMove.MOVE_MASK) | ((long) (score & 0xFFFF) << 16)
+                | ((long) (depth & 0xFF) << 32) | ((long) bound << 40);
+    }
+
+    static int move(long data) {
+        return (int) data & PackedMove.MOVE_MASK;
+    }
+
+    static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    static int depth(long data) {
+        return (int) (data >>> 32) & 0xFF;
+    }
+
+    static int bound(long data) {
+        return (int) (data >>> 40) & 3;
+    }
+}
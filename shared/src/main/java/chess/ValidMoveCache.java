@@ -0,0 +1,112 @@
+package chess;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of legal move lists that can be shared by any number of
+ * games and threads. Entries are keyed by the position's Zobrist key plus the
+ * start square, so a changed board simply looks up a different key and stale
+ * entries never need to be invalidated; they get overwritten over time.
+ * <p>
+ * The table is split into stripes, each guarded by its own lock, so lookups
+ * for different positions rarely wait on each other. Each stripe is a
+ * direct-mapped table: a new entry replaces whatever was in its slot.
+ */
+public class ValidMoveCache {
+    private final Stripe stripes[];
+    private final int stripe_mask;
+    private final int slot_mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity total number of entries, rounded up to a power of two
+     * @param stripes  number of independently locked stripes, rounded up to a power of two
+     */
+    public ValidMoveCache(int capacity, int stripes) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes) * 2 - 1);
+        int perStripe = Integer.highestOneBit(Math.max(1, capacity / stripeCount) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+        stripe_mask = stripeCount - 1;
+        slot_mask = perStripe - 1;
+    }
+
+    public ValidMoveCache() {
+        this(1 << 16, 64);
+    }
+
+    private static final class Stripe {
+        final long keys[];
+        final int moves[][];
+
+        Stripe(int size) {
+            keys = new long[size];
+            moves = new int[size][];
+        }
+    }
+
+    static long key(long positionKey, int square) {
+        long key = positionKey ^ (square + 1) * 0x9E3779B97F4A7C15L;
+        // spread the bits so the stripe and slot indexes use all of the key
+        key ^= key >>> 31;
+        key *= 0xBF58476D1CE4E5B9L;
+        return key ^ (key >>> 29);
+    }
+
+    /**
+     * @return the cached packed moves for the key, or null if not cached. The
+     * returned array must not be modified.
+     */
+    int[] get(long key) {
+        Stripe stripe = stripes[(int) key & stripe_mask];
+        int slot = (int) (key >>> 32) & slot_mask;
+        int found[];
+        synchronized (stripe) {
+            found = stripe.moves[slot] != null && stripe.keys[slot] == key ? stripe.moves[slot] : null;
+        }
+        if (found == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return found;
+    }
+
+    void put(long key, int moves[]) {
+        Stripe stripe = stripes[(int) key & stripe_mask];
+        int slot = (int) (key >>> 32) & slot_mask;
+        synchronized (stripe) {
+            stripe.keys[slot] = key;
+            stripe.moves[slot] = moves;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the fraction of lookups that were answered from the cache
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Arrays.fill(stripe.moves, null);
+            }
+        }
+    }
+}
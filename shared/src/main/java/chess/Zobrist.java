@@ -0,0 +1,38 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the key of
+ * every (piece, square) pair on the board, {@link #SIDE} when black is to
+ * move, the key of the castling rights and the key of the en passant file if
+ * there is one, so adding, removing or moving a piece only needs one or two
+ * XORs to update the key.
+ */
+final class Zobrist {
+    static final long PIECES[][] = new long[Bitboards.PIECE_KINDS][64];
+    static final long SIDE;
+    // by the 4-bit castling rights of GameState; no rights has key 0
+    static final long CASTLING[] = new long[16];
+    // by the file of the en passant target square
+    static final long EN_PASSANT[] = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x240C4E55L);
+        for (long[] piece : PIECES) {
+            for (int sq = 0; sq < 64; sq++) {
+                piece[sq] = random.nextLong();
+            }
+        }
+        SIDE = random.nextLong();
+        for (int rights = 1; rights < CASTLING.length; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,80 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class BoardRenderingTests {
+    private static final String START = """
+
+            | r || n || b || q || k || b || n || r |
+            | p || p || p || p || p || p || p || p |
+            |   ||   ||   ||   ||   ||   ||   ||   |
+            |   ||   ||   ||   ||   ||   ||   ||   |
+            |   ||   ||   ||   ||   ||   ||   ||   |
+            |   ||   ||   ||   ||   ||   ||   ||   |
+            | P || P || P || P || P || P || P || P |
+            | R || N || B || Q || K || B || N || R |
+            """;
+
+    @Test
+    @DisplayName("Rendered Text Layout")
+    public void layout() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(START, board.toString());
+        Assertions.assertEquals(ChessBoard.RENDERED_LENGTH, START.length());
+    }
+
+    @Test
+    @DisplayName("Text Is Reused Until The Board Changes")
+    public void cached() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        String first = board.toString();
+
+        Assertions.assertSame(first, board.toString());
+
+        board.addPiece(ChessPosition.of(4, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+        String changed = board.toString();
+        Assertions.assertNotEquals(first, changed);
+        Assertions.assertEquals('Q', changed.charAt(1 + 4 * 41 + 4 * 5 + 2));
+
+        board.resetBoard();
+        Assertions.assertEquals(START, board.toString());
+
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.makeMove(PackedMove.of(Bitboards.square(2, 5), Bitboards.square(4, 5), null, PackedMove.DOUBLE_PUSH));
+        Assertions.assertNotEquals(START, board.toString(), "Moving a piece kept the old text");
+        game.unmakeMove();
+        Assertions.assertEquals(START, board.toString());
+    }
+
+    @Test
+    @DisplayName("Rendering Into A Sink")
+    public void sinks() throws IOException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        StringBuilder text = new StringBuilder("board:");
+        board.render(text);
+        Assertions.assertEquals("board:" + START, text.toString());
+
+        ByteBuffer bytes = ByteBuffer.allocate(ChessBoard.RENDERED_LENGTH);
+        board.render(bytes);
+        Assertions.assertFalse(bytes.hasRemaining());
+        Assertions.assertEquals(START, new String(bytes.array(), StandardCharsets.US_ASCII));
+
+        // once toString has built the text, the same text comes from the cache
+        Assertions.assertEquals(START, board.toString());
+        StringBuilder cached = new StringBuilder();
+        board.render(cached);
+        Assertions.assertEquals(START, cached.toString());
+    }
+}
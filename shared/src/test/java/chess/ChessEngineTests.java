@@ -0,0 +1,133 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chess.TestGames.gameOf;
+import static chess.TestGames.startingGame;
+
+public class ChessEngineTests {
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = gameOf("""
+                |r| |b|q|k|b| |r|
+                |p|p|p|p| |p|p|p|
+                | | |n| | |n| | |
+                | | | | |p| | |Q|
+                | | |B| |P| | | |
+                | | | | | | | | |
+                |P|P|P|P| |P|P|P|
+                |R|N|B| |K| |N|R|
+                """, ChessGame.TeamColor.WHITE);
+
+        ChessMove best = new ChessEngine().findBestMove(game, 4, 0, 0);
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(5, 8), new ChessPosition(7, 6), null), best);
+    }
+
+    @Test
+    @DisplayName("Finds Mate In One With Helper Threads")
+    public void mateInOneParallel() {
+        ChessGame game = gameOf("""
+                |r| |b|q|k|b| |r|
+                |p|p|p|p| |p|p|p|
+                | | |n| | |n| | |
+                | | | | |p| | |Q|
+                | | |B| |P| | | |
+                | | | | | | | | |
+                |P|P|P|P| |P|P|P|
+                |R|N|B| |K| |N|R|
+                """, ChessGame.TeamColor.WHITE);
+        ChessGame before = new ChessGame(game);
+
+        ChessEngine engine = new ChessEngine();
+        ChessMove best = engine.findBestMove(game, 5, 0, 0, 4);
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(5, 8), new ChessPosition(7, 6), null), best);
+        Assertions.assertTrue(engine.getNodes() > 0);
+        Assertions.assertEquals(before, game, "Search changed the game");
+    }
+
+    @Test
+    @DisplayName("Node Count Covers Only The Last Search's Threads")
+    public void nodesOfLastSearch() {
+        ChessGame game = startingGame();
+
+        try (ChessEngine engine = new ChessEngine(1)) {
+            engine.findBestMove(game, 4, 0, 0, 4);
+            long parallel = engine.getNodes();
+            engine.findBestMove(game, 1, 0, 0, 1);
+            long single = engine.getNodes();
+            Assertions.assertTrue(single > 0 && single < 100,
+                    "Depth 1 search counted " + single + " nodes after a " + parallel + " node parallel search");
+
+            engine.close();
+            Assertions.assertNotNull(engine.findBestMove(game, 2, 0, 0, 2), "Engine could not search after closing");
+        }
+    }
+
+    @Test
+    @DisplayName("Takes A Hanging Queen")
+    public void winsMaterial() {
+        ChessGame game = gameOf("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |q| | | |
+                | | | | | | | | |
+                | | | | | |N| | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.WHITE);
+        ChessGame before = new ChessGame(game);
+
+        ChessEngine engine = new ChessEngine(1);
+        ChessMove best = engine.findBestMove(game, 3, 100_000, 0);
+
+        Assertions.assertEquals(new ChessMove(new ChessPosition(3, 6), new ChessPosition(5, 5), null), best);
+        Assertions.assertTrue(engine.getScore() > 0, "Winning the queen should leave white ahead");
+        Assertions.assertEquals(before, game, "Search changed the game");
+    }
+
+    @Test
+    @DisplayName("No Move When Checkmated")
+    public void noMove() {
+        ChessGame game = gameOf("""
+                | | | | | | | |k|
+                | | | | | | |Q| |
+                | | | | | |K| | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+
+        Assertions.assertNull(new ChessEngine(1).findBestMove(game, 3, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Reused Engine Keeps Finding The Mate And Rejects Zero Threads")
+    public void reuse() {
+        ChessGame game = gameOf("""
+                |r| |b|q|k|b| |r|
+                |p|p|p|p| |p|p|p|
+                | | |n| | |n| | |
+                | | | | |p| | |Q|
+                | | |B| |P| | | |
+                | | | | | | | | |
+                |P|P|P|P| |P|P|P|
+                |R|N|B| |K| |N|R|
+                """, ChessGame.TeamColor.WHITE);
+
+        ChessEngine engine = new ChessEngine(1);
+        for (int i = 0; i < 20; i++) {
+            Assertions.assertEquals(new ChessMove(new ChessPosition(5, 8), new ChessPosition(7, 6), null),
+                    engine.findBestMove(game, 4, 0, 0));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.findBestMove(game, 4, 0, 0, 0));
+    }
+}
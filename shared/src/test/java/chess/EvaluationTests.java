@@ -0,0 +1,103 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static passoffTests.TestFactory.loadBoard;
+
+public class EvaluationTests {
+
+    private static ChessBoard rebuild(ChessBoard board) {
+        ChessBoard fresh = new ChessBoard();
+        for (int sq = 0; sq < 64; sq++) {
+            if (board.pieceAt(sq) != null) {
+                fresh.addPiece(PackedMove.position(sq), board.pieceAt(sq));
+            }
+        }
+        return fresh;
+    }
+
+    @Test
+    @DisplayName("Starting Position Is Even")
+    public void startIsEven() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        Assertions.assertEquals(0, board.getEvaluation());
+        Assertions.assertEquals(0, new ChessBoard().getEvaluation());
+    }
+
+    @Test
+    @DisplayName("Mirrored Position Has The Opposite Score")
+    public void mirrored() {
+        ChessBoard board = loadBoard("""
+                | | | | |k| | | |
+                | |p| | | |p|p| |
+                | | |n| | | | | |
+                | | | | |q| | | |
+                | | |B|P| | | | |
+                | | | | | |N| | |
+                |P|P| | | |P|P|P|
+                |R| | | |K| | |R|
+                """);
+        ChessBoard mirror = loadBoard("""
+                |r| | | |k| | |r|
+                |p|p| | | |p|p|p|
+                | | | | | |n| | |
+                | | |b|p| | | | |
+                | | | | |Q| | | |
+                | | |N| | | | | |
+                | |P| | | |P|P| |
+                | | | | |K| | | |
+                """);
+
+        Assertions.assertNotEquals(0, board.getEvaluation());
+        Assertions.assertEquals(-board.getEvaluation(), mirror.getEvaluation());
+    }
+
+    @Test
+    @DisplayName("Incremental Score Matches A Rebuilt Board")
+    public void incrementalMatchesRebuild() {
+        Random random = new Random(13);
+        int moves[] = new int[PackedMove.MAX_POSITION_MOVES];
+        for (int g = 0; g < 50; g++) {
+            ChessBoard board = new ChessBoard();
+            board.resetBoard();
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+            for (int ply = 0; ply < 150; ply++) {
+                int n = MoveGenerator.generateLegal(board, game.getTeamTurn(), game.state, -1L, moves, 0);
+                if (n == 0) {
+                    break;
+                }
+                game.makeMove(moves[random.nextInt(n)]);
+                Assertions.assertEquals(rebuild(board).getEvaluation(), board.getEvaluation(),
+                        "Score drifted on" + board);
+            }
+            while (game.getUndoDepth() > 0) {
+                game.unmakeMove();
+            }
+            Assertions.assertEquals(0, board.getEvaluation());
+        }
+    }
+
+    @Test
+    @DisplayName("Endgame Tables Take Over As Pieces Come Off")
+    public void tapers() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(new ChessPosition(7, 1), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+
+        int sq = Bitboards.square(7, 1);
+        int white = Bitboards.index(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        int black = Bitboards.index(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        int pawn = Bitboards.index(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        int expected = Evaluation.ENDGAME[pawn][sq] + Evaluation.ENDGAME[white][Bitboards.square(1, 5)]
+                + Evaluation.ENDGAME[black][Bitboards.square(8, 5)];
+        Assertions.assertEquals(expected, board.getEvaluation());
+    }
+}
@@ -0,0 +1,113 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class FlyweightTests {
+
+    @Test
+    @DisplayName("Positions Are Shared And Equal To Constructed Ones")
+    public void sharedPositions() {
+        Set<Integer> hashes = new HashSet<>();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPosition shared = ChessPosition.of(row, col);
+                Assertions.assertSame(shared, ChessPosition.of(row, col));
+                Assertions.assertEquals(new ChessPosition(row, col), shared);
+                Assertions.assertEquals(new ChessPosition(row, col).hashCode(), shared.hashCode());
+                hashes.add(shared.hashCode());
+            }
+        }
+        Assertions.assertEquals(64, hashes.size(), "On-board positions should not collide");
+
+        ChessPosition off = ChessPosition.of(0, 9);
+        Assertions.assertEquals(0, off.getRow());
+        Assertions.assertEquals(9, off.getColumn());
+    }
+
+    @Test
+    @DisplayName("Moves Are Shared And Equal To Constructed Ones")
+    public void sharedMoves() {
+        ChessPosition from = new ChessPosition(7, 2);
+        ChessPosition to = new ChessPosition(8, 2);
+        for (ChessPiece.PieceType promo : new ChessPiece.PieceType[]{null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KNIGHT}) {
+            ChessMove shared = ChessMove.of(from, to, promo);
+            Assertions.assertSame(shared, ChessMove.of(ChessPosition.of(7, 2), ChessPosition.of(8, 2), promo));
+            Assertions.assertEquals(new ChessMove(from, to, promo), shared);
+            Assertions.assertEquals(new ChessMove(from, to, promo).hashCode(), shared.hashCode());
+            Assertions.assertSame(ChessPosition.of(7, 2), shared.getStartPosition());
+        }
+        Assertions.assertNotEquals(ChessMove.of(from, to, null), ChessMove.of(from, to, ChessPiece.PieceType.QUEEN));
+        Assertions.assertNull(ChessMove.of(null, to, null).getStartPosition());
+    }
+
+    @Test
+    @DisplayName("Generated Moves Use The Shared Instances")
+    public void generatedMovesShared() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        for (ChessMove move : game.validMoves(ChessPosition.of(1, 7))) {
+            Assertions.assertSame(ChessMove.of(move.getStartPosition(), move.getEndPosition(), null), move);
+        }
+        Assertions.assertSame(ChessPosition.of(1, 5), game.getKingPos(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Pieces Are Shared And Equal To Constructed Ones")
+    public void sharedPieces() {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                ChessPiece shared = ChessPiece.of(color, type);
+                Assertions.assertSame(shared, ChessPiece.of(color, type));
+                Assertions.assertSame(shared, ChessPiece.of(ChessPiece.code(shared)));
+                Assertions.assertEquals(new ChessPiece(color, type), shared);
+                Assertions.assertEquals(new ChessPiece(color, type).hashCode(), shared.hashCode());
+            }
+        }
+        Assertions.assertNull(ChessPiece.of(0));
+    }
+
+    @Test
+    @DisplayName("Board Hands Out Shared Pieces")
+    public void boardUsesSharedPieces() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(2, 3), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                board.getPiece(ChessPosition.of(2, 3)));
+        Assertions.assertNull(board.getPiece(ChessPosition.of(3, 2)));
+
+        ChessBoard copy = new ChessBoard(board);
+        copy.addPiece(ChessPosition.of(2, 3), null);
+        Assertions.assertNotNull(board.getPiece(ChessPosition.of(2, 3)), "Copy shares squares with the original");
+    }
+
+    @Test
+    @DisplayName("Promotion Uses The Shared Piece And Unmakes Cleanly")
+    public void promotionShared() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(2, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+        board.addPiece(ChessPosition.of(1, 2), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        ChessBoard before = new ChessBoard(board);
+
+        game.makeMove(PackedMove.of(PackedMove.square(ChessPosition.of(2, 1)), PackedMove.square(ChessPosition.of(1, 2)),
+                ChessPiece.PieceType.KNIGHT, PackedMove.CAPTURE));
+        Assertions.assertSame(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                board.getPiece(ChessPosition.of(1, 2)));
+
+        game.unmakeMove();
+        Assertions.assertEquals(before, board);
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                board.getPiece(ChessPosition.of(1, 2)));
+    }
+}
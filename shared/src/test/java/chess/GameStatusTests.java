@@ -0,0 +1,109 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static chess.TestGames.gameOf;
+
+public class GameStatusTests {
+
+    @Test
+    @DisplayName("Twenty Moves From The Start")
+    public void startCount() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        Assertions.assertEquals(20, game.legalMoveCount(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(20, game.legalMoveCount(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(game.hasAnyLegalMove(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Check That Can Be Blocked Is Not Mate")
+    public void blockIsNotMate() {
+        // the king has no squares, but the bishop can block on f8
+        ChessGame game = gameOf("""
+                | | | |R| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | |b| | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                | | | | | | |K| |
+                """, ChessGame.TeamColor.BLACK);
+
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(1, game.legalMoveCount(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Check That Can Be Captured Is Not Mate")
+    public void captureIsNotMate() {
+        ChessGame game = gameOf("""
+                | | | |R| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |r| |P|P|P|
+                | | | | | | |K| |
+                """, ChessGame.TeamColor.BLACK);
+
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(game.hasAnyLegalMove(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Mate Is Not Stalemate")
+    public void mateIsNotStalemate() {
+        ChessGame game = gameOf("""
+                | | | |R| | |k| |
+                | | | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |P|P|P|
+                | | | | | | |K| |
+                """, ChessGame.TeamColor.BLACK);
+
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(0, game.legalMoveCount(ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Counts Match The Generator Through Random Games")
+    public void countsMatchGenerator() {
+        Random random = new Random(14);
+        int moves[] = new int[PackedMove.MAX_POSITION_MOVES];
+        for (int g = 0; g < 50; g++) {
+            ChessBoard board = new ChessBoard();
+            board.resetBoard();
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+            for (int ply = 0; ply < 200; ply++) {
+                ChessGame.TeamColor turn = game.getTeamTurn();
+                int n = MoveGenerator.generateLegal(board, turn, game.state, -1L, moves, 0);
+                Assertions.assertEquals(n, game.legalMoveCount(turn));
+                Assertions.assertEquals(n > 0, game.hasAnyLegalMove(turn));
+                Assertions.assertEquals(n == 0 && game.isInCheck(turn), game.isInCheckmate(turn));
+                Assertions.assertEquals(n == 0 && !game.isInCheck(turn), game.isInStalemate(turn));
+                if (n == 0) {
+                    break;
+                }
+                game.makeMove(moves[random.nextInt(n)]);
+            }
+        }
+    }
+}
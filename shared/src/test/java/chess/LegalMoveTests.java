@@ -0,0 +1,46 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+public class LegalMoveTests {
+
+    @Test
+    @DisplayName("Legal Generator Matches Make/Unmake Filtering")
+    public void matchesFiltering() throws InvalidMoveException {
+        Random random = new Random(240);
+        for (int g = 0; g < 100; g++) {
+            ChessBoard board = new ChessBoard();
+            board.resetBoard();
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+            for (int ply = 0; ply < 120; ply++) {
+                List<ChessMove> all = new ArrayList<>();
+                for (int row = 1; row <= 8; row++) {
+                    for (int col = 1; col <= 8; col++) {
+                        ChessPosition pos = new ChessPosition(row, col);
+                        if (board.getPiece(pos) == null) {
+                            continue;
+                        }
+                        Collection<ChessMove> fast = game.validMoves(pos);
+                        Assertions.assertEquals(game.validMovesByFiltering(pos), fast,
+                                "Legal moves differ from " + pos + " on" + board);
+                        if (board.getPiece(pos).getTeamColor() == game.getTeamTurn()) {
+                            all.addAll(fast);
+                        }
+                    }
+                }
+                if (all.isEmpty()) {
+                    break;
+                }
+                game.makeMove(all.get(random.nextInt(all.size())));
+            }
+        }
+    }
+}
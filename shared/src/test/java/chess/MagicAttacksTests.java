@@ -0,0 +1,25 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MagicAttacksTests {
+
+    @Test
+    @DisplayName("Magic Lookups Match Ray Walking")
+    public void matchesRayWalk() {
+        Random random = new Random(240);
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int sq = 0; sq < 64; sq++) {
+                Assertions.assertEquals(Bitboards.slidingAttacks(sq, occupied, Bitboards.BISHOP_DIRECTIONS),
+                        MagicAttacks.bishopAttacks(sq, occupied), "Wrong bishop attacks from square " + sq);
+                Assertions.assertEquals(Bitboards.slidingAttacks(sq, occupied, Bitboards.ROOK_DIRECTIONS),
+                        MagicAttacks.rookAttacks(sq, occupied), "Wrong rook attacks from square " + sq);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class MakeUnmakeTests {
+
+    @Test
+    @DisplayName("Unmaking Every Move Restores The Game")
+    public void unmakeRestores() {
+        Random random = new Random(240);
+        for (int g = 0; g < 50; g++) {
+            ChessBoard board = new ChessBoard();
+            board.resetBoard();
+            ChessGame game = new ChessGame();
+            game.setBoard(board);
+            ChessGame start = new ChessGame(game);
+            long keys[] = new long[200];
+            int moves[] = new int[PackedMove.MAX_POSITION_MOVES];
+            int played = 0;
+            while (played < keys.length) {
+                int n = MoveGenerator.generateLegal(game.board, game.getTeamTurn(), game.state, -1L, moves, 0);
+                if (n == 0) {
+                    break;
+                }
+                keys[played++] = game.getZobristKey();
+                game.makeMove(moves[random.nextInt(n)]);
+            }
+            Assertions.assertEquals(played, game.getUndoDepth());
+            while (played > 0) {
+                game.unmakeMove();
+                Assertions.assertEquals(keys[--played], game.getZobristKey());
+            }
+            Assertions.assertEquals(start, game);
+            Assertions.assertThrows(IllegalStateException.class, game::unmakeMove);
+        }
+    }
+
+    @Test
+    @DisplayName("Takeback After A Checked Move")
+    public void takeback() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        ChessBoard before = new ChessBoard(board);
+
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.unmakeMove();
+
+        Assertions.assertEquals(before, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+}
@@ -0,0 +1,89 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static chess.TestGames.gameOf;
+import static chess.TestGames.startingGame;
+
+public class PerftTests {
+
+    @Test
+    @DisplayName("Starting Position Counts")
+    public void startingPosition() {
+        ChessGame game = startingGame();
+        long expected[] = {1, 20, 400, 8902, 197281};
+        for (int depth = 0; depth < expected.length; depth++) {
+            Assertions.assertEquals(expected[depth], Perft.perft(game, depth), "Wrong count at depth " + depth);
+        }
+        Assertions.assertEquals(startingGame(), game, "Perft changed the game");
+    }
+
+    private static void assertCounts(String boardText, ChessGame.TeamColor turn, long expected[]) {
+        ChessGame game = gameOf(boardText, turn);
+        for (int depth = 1; depth < expected.length; depth++) {
+            Assertions.assertEquals(expected[depth], Perft.perft(game, depth), "Wrong count at depth " + depth);
+        }
+    }
+
+    @Test
+    @DisplayName("Castling And En Passant Position Counts")
+    public void kiwipete() {
+        // castling both ways for both sides, en passant and promotions a few plies in
+        assertCounts("""
+                |r| | | |k| | |r|
+                |p| |p|p|q|p|b| |
+                |b|n| | |p|n|p| |
+                | | | |P|N| | | |
+                | |p| | |P| | | |
+                | | |N| | |Q| |p|
+                |P|P|P|B|B|P|P|P|
+                |R| | | |K| | |R|
+                """, ChessGame.TeamColor.WHITE, new long[]{1, 48, 2039, 97862});
+    }
+
+    @Test
+    @DisplayName("Pinned En Passant Position Counts")
+    public void rookEndgame() {
+        // en passant captures that would expose the king along the row
+        assertCounts("""
+                | | | | | | | | |
+                | | |p| | | | | |
+                | | | |p| | | | |
+                |K|P| | | | | |r|
+                | |R| | | |p| |k|
+                | | | | | | | | |
+                | | | | |P| |P| |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE, new long[]{1, 14, 191, 2812, 43238, 674624});
+    }
+
+    @Test
+    @DisplayName("Promotion And Lost Castling Rights Position Counts")
+    public void promotions() {
+        assertCounts("""
+                |r| | | |k| | |r|
+                |P|p|p|p| |p|p|p|
+                | |b| | | |n|b|N|
+                |n|P| | | | | | |
+                |B|B|P| |P| | | |
+                |q| | | | |N| | |
+                |P|p| |P| | |P|P|
+                |R| | |Q| |R|K| |
+                """, ChessGame.TeamColor.WHITE, new long[]{1, 6, 264, 9467});
+    }
+
+    @Test
+    @DisplayName("Divide And Parallel Agree")
+    public void divideAndParallel() {
+        ChessGame game = startingGame();
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+        Assertions.assertEquals(20, divide.size());
+        Assertions.assertEquals(8902L, divide.values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(8902L, Perft.parallelPerft(game, 3, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,148 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static chess.TestGames.startingGame;
+
+public class PositionCodecTests {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static void assertSamePosition(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expected.getZobristKey(), actual.getZobristKey());
+        Assertions.assertEquals(expected.getHalfmoveClock(), actual.getHalfmoveClock());
+        Assertions.assertEquals(expected.getFullmoveNumber(), actual.getFullmoveNumber());
+    }
+
+    @Test
+    @DisplayName("Starting Position FEN")
+    public void startingFen() {
+        Assertions.assertEquals(Fen.START, Fen.toFen(startingGame()));
+        assertSamePosition(startingGame(), Fen.parse(Fen.START));
+    }
+
+    @Test
+    @DisplayName("Parsed FEN Plays Like The Position")
+    public void parsedPositionPlays() {
+        ChessGame game = Fen.parse(KIWIPETE);
+
+        Assertions.assertEquals(KIWIPETE, Fen.toFen(game));
+        Assertions.assertEquals(2039, Perft.perft(game, 2));
+    }
+
+    @Test
+    @DisplayName("FEN From A Byte Buffer")
+    public void byteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(128);
+        buffer.put(("junk" + KIWIPETE).getBytes(StandardCharsets.US_ASCII)).flip();
+        buffer.position(4);
+
+        ChessGame game = Fen.parse(buffer);
+
+        Assertions.assertEquals(buffer.limit(), buffer.position());
+        assertSamePosition(Fen.parse(KIWIPETE), game);
+
+        ByteBuffer out = ByteBuffer.allocate(Fen.MAX_LENGTH);
+        Fen.write(game, out);
+        Assertions.assertEquals(KIWIPETE, new String(out.array(), 0, out.position(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    @DisplayName("Optional Counters And Unusable En Passant")
+    public void lenientFields() {
+        ChessGame game = Fen.parse("4k3/8/8/8/3P4/8/8/4K3 b - d3");
+
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        Assertions.assertEquals(1, game.getFullmoveNumber());
+        Assertions.assertEquals("4k3/8/8/8/3P4/8/8/4K3 b - - 0 1", Fen.toFen(game), "No pawn can take on d3");
+
+        ChessGame usable = Fen.parse("4k3/8/8/8/3Pp3/8/8/4K3 b - d3 0 1");
+        Assertions.assertEquals("4k3/8/8/8/3Pp3/8/8/4K3 b - d3 0 1", Fen.toFen(usable));
+    }
+
+    @Test
+    @DisplayName("Bad FEN Is Rejected")
+    public void badFen() {
+        String bad[] = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - zero 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KKq - 0 1",
+                // en passant on the wrong row for the side to move
+                "4k3/8/8/8/3Pp3/8/8/4K3 w - d3 0 1",
+                // target square taken, no pawn past it, square it came from taken
+                "4k3/8/8/8/3Pp3/3N4/8/4K3 b - d3 0 1",
+                "4k3/8/8/8/4p3/8/8/4K3 b - d3 0 1",
+                "4k3/8/8/8/3Pp3/8/3P4/4K3 b - d3 0 1",
+        };
+        for (String fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> Fen.parse(fen), fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Both Codecs Round Trip Played Games")
+    public void roundTrips() {
+        Random random = new Random(19);
+        int moves[] = new int[PackedMove.MAX_POSITION_MOVES];
+        for (int g = 0; g < 30; g++) {
+            ChessGame game = startingGame();
+            for (int ply = 0; ply < 150; ply++) {
+                byte encoded[] = BinaryPosition.encode(game);
+                Assertions.assertEquals(BinaryPosition.SIZE, encoded.length);
+                assertSamePosition(game, BinaryPosition.decode(encoded));
+                assertSamePosition(game, Fen.parse(Fen.toFen(game)));
+
+                int n = MoveGenerator.generateLegal(game.board, game.curr_turn, game.state, -1L, moves, 0);
+                if (n == 0) {
+                    break;
+                }
+                game.makeMove(moves[random.nextInt(n)]);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Binary Codec Rejects Bad Input")
+    public void badBinary() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryPosition.decode(new byte[BinaryPosition.SIZE - 1]));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> BinaryPosition.read(ByteBuffer.allocate(BinaryPosition.SIZE - 1)));
+
+        byte passed[] = BinaryPosition.encode(Fen.parse("4k3/8/8/8/3Pp3/8/8/4K3 b - d3 0 1"));
+        Assertions.assertEquals(19, passed[25]);
+        passed[25] = 64;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryPosition.decode(passed));
+        // d4 holds the pawn itself
+        passed[25] = 27;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryPosition.decode(passed));
+        // white to move cannot have a target on row 3
+        passed[25] = 19;
+        passed[24] &= ~1;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryPosition.decode(passed));
+
+        byte data[] = BinaryPosition.encode(startingGame());
+        data[8] = (byte) 0xF0;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryPosition.decode(data));
+
+        ChessBoard crowded = new ChessBoard();
+        for (int sq = 0; sq < 33; sq++) {
+            crowded.setSquare(sq, ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(crowded);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinaryPosition.encode(game));
+    }
+}
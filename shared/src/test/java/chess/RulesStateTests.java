@@ -0,0 +1,253 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static chess.TestGames.gameOf;
+
+public class RulesStateTests {
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return ChessMove.of(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null);
+    }
+
+    private static final String CASTLING_BOARD = """
+            |r| | | |k| | |r|
+            |p|p|p|p|p|p|p|p|
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            | | | | | | | | |
+            |P|P|P|P|P|P|P|P|
+            |R| | | |K| | |R|
+            """;
+
+    @Test
+    @DisplayName("King Castles Both Ways And Brings The Rook")
+    public void castles() throws InvalidMoveException {
+        ChessGame game = gameOf(CASTLING_BOARD, ChessGame.TeamColor.WHITE);
+
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(1, 5)).contains(move(1, 5, 1, 7)));
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(1, 5)).contains(move(1, 5, 1, 3)));
+
+        game.makeMove(move(1, 5, 1, 7));
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING),
+                game.getBoard().getPiece(ChessPosition.of(1, 7)));
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(ChessPosition.of(1, 6)));
+        Assertions.assertNull(game.getBoard().getPiece(ChessPosition.of(1, 8)));
+
+        game.makeMove(move(8, 5, 8, 3));
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(ChessPosition.of(8, 4)));
+        Assertions.assertNull(game.getBoard().getPiece(ChessPosition.of(8, 1)));
+
+        game.unmakeMove();
+        game.unmakeMove();
+        Assertions.assertEquals(gameOf(CASTLING_BOARD, ChessGame.TeamColor.WHITE), game);
+    }
+
+    @Test
+    @DisplayName("No Castling Out Of, Through Or After Moving")
+    public void castlingRestrictions() throws InvalidMoveException {
+        // the bishop on c4 covers f1 through the open diagonal
+        ChessGame game = gameOf("""
+                |r| | | |k| | |r|
+                |p|p|p| |p|p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |b| | | | | |
+                | | | | | | | | |
+                |P|P|P|P| | |P|P|
+                |R| | | |K| | |R|
+                """, ChessGame.TeamColor.WHITE);
+        Assertions.assertFalse(game.validMoves(ChessPosition.of(1, 5)).contains(move(1, 5, 1, 7)),
+                "Castled through an attacked square");
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(1, 5)).contains(move(1, 5, 1, 3)));
+
+        ChessGame rookMoved = gameOf(CASTLING_BOARD, ChessGame.TeamColor.WHITE);
+        rookMoved.makeMove(move(1, 8, 1, 7));
+        rookMoved.makeMove(move(7, 1, 6, 1));
+        rookMoved.makeMove(move(1, 7, 1, 8));
+        rookMoved.makeMove(move(6, 1, 5, 1));
+        Assertions.assertFalse(rookMoved.validMoves(ChessPosition.of(1, 5)).contains(move(1, 5, 1, 7)),
+                "Castled with a rook that had moved");
+        Assertions.assertTrue(rookMoved.validMoves(ChessPosition.of(1, 5)).contains(move(1, 5, 1, 3)));
+        ChessGame samePieces = new ChessGame();
+        samePieces.setBoard(new ChessBoard(rookMoved.getBoard()));
+        Assertions.assertNotEquals(samePieces.getZobristKey(), rookMoved.getZobristKey(), "Lost rights should change the key");
+        Assertions.assertNotEquals(samePieces, rookMoved);
+    }
+
+    @Test
+    @DisplayName("Pawn Takes En Passant Only Right After The Double Step")
+    public void enPassant() throws InvalidMoveException {
+        ChessGame game = gameOf("""
+                | | | | |k| | | |
+                | | | |p| | | | |
+                | | | | | | | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.BLACK);
+
+        game.makeMove(move(7, 4, 5, 4));
+        ChessMove capture = move(5, 5, 6, 4);
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(5, 5)).contains(capture));
+
+        ChessGame later = new ChessGame(game);
+        later.makeMove(move(1, 5, 1, 4));
+        later.makeMove(move(8, 5, 8, 4));
+        Assertions.assertFalse(later.validMoves(ChessPosition.of(5, 5)).contains(capture), "Capture was still allowed later");
+
+        game.makeMove(capture);
+        Assertions.assertNull(game.getBoard().getPiece(ChessPosition.of(5, 4)), "Captured pawn is still on the board");
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                game.getBoard().getPiece(ChessPosition.of(6, 4)));
+
+        game.unmakeMove();
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN),
+                game.getBoard().getPiece(ChessPosition.of(5, 4)));
+        Assertions.assertTrue(game.validMoves(ChessPosition.of(5, 5)).contains(capture), "Unmake lost the target");
+    }
+
+    @Test
+    @DisplayName("Target Only Counts When A Pawn Can Use It")
+    public void unusableTargetNotHashed() throws InvalidMoveException {
+        ChessGame pushed = gameOf("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |P| | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.WHITE);
+        pushed.makeMove(move(2, 4, 4, 4));
+        ChessGame placed = gameOf("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |P| | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.BLACK);
+
+        Assertions.assertEquals(placed.getZobristKey(), pushed.getZobristKey());
+        Assertions.assertEquals(placed, pushed);
+    }
+
+    @Test
+    @DisplayName("Halfmove Clock Counts Quiet Moves")
+    public void halfmoveClock() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        game.makeMove(move(1, 2, 3, 3));
+        game.makeMove(move(8, 2, 6, 3));
+        Assertions.assertEquals(2, game.getHalfmoveClock());
+        game.makeMove(move(2, 5, 4, 5));
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+        game.makeMove(move(6, 3, 4, 4));
+        game.makeMove(move(3, 3, 5, 2));
+        Assertions.assertEquals(2, game.getHalfmoveClock());
+        game.makeMove(move(4, 4, 2, 3));
+        Assertions.assertEquals(0, game.getHalfmoveClock(), "A capture should reset the clock");
+
+        game.unmakeMove();
+        Assertions.assertEquals(2, game.getHalfmoveClock());
+    }
+
+    private static void shuffleKnights(ChessGame game) throws InvalidMoveException {
+        game.makeMove(move(1, 7, 3, 6));
+        game.makeMove(move(8, 7, 6, 6));
+        game.makeMove(move(3, 6, 1, 7));
+        game.makeMove(move(6, 6, 8, 7));
+    }
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefold() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        shuffleKnights(game);
+        Assertions.assertEquals(2, game.getRepetitionCount());
+        Assertions.assertFalse(game.isThreefoldRepetition());
+        shuffleKnights(game);
+        Assertions.assertEquals(3, game.getRepetitionCount());
+        Assertions.assertTrue(game.isThreefoldRepetition());
+
+        game.unmakeMove();
+        Assertions.assertEquals(2, game.getRepetitionCount(), "Knight on f6 position was seen twice before");
+        game.makeMove(move(6, 6, 8, 7));
+        Assertions.assertTrue(game.isThreefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Repetition Ignores Positions Before A Pawn Move")
+    public void repetitionWindow() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        shuffleKnights(game);
+        game.makeMove(move(2, 1, 3, 1));
+        game.makeMove(move(7, 1, 6, 1));
+        Assertions.assertEquals(1, game.getRepetitionCount());
+        shuffleKnights(game);
+        shuffleKnights(game);
+        Assertions.assertEquals(3, game.getRepetitionCount());
+
+        ChessGame copy = new ChessGame(game);
+        Assertions.assertEquals(3, copy.getRepetitionCount(), "Copy lost the earlier positions");
+        copy.unmakeMove();
+        Assertions.assertEquals(2, copy.getRepetitionCount());
+        Assertions.assertEquals(3, game.getRepetitionCount(), "Unmaking the copy changed the original");
+
+        ChessGame recent = game.copyRecent();
+        Assertions.assertEquals(game, recent);
+        Assertions.assertEquals(3, recent.getRepetitionCount());
+        Assertions.assertEquals(game.getHalfmoveClock(), recent.getUndoDepth(), "Copy kept moves no repetition can reach");
+    }
+
+    @Test
+    @DisplayName("Long Quiet Stretches Keep Counting")
+    public void longQuietStretch() throws InvalidMoveException {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.makeMove(move(2, 1, 3, 1));
+        game.makeMove(move(7, 1, 6, 1));
+
+        for (int i = 0; i < 75; i++) {
+            shuffleKnights(game);
+        }
+        Assertions.assertEquals(300, game.getHalfmoveClock());
+        Assertions.assertEquals(300, BinaryPosition.decode(BinaryPosition.encode(game)).getHalfmoveClock());
+        Assertions.assertEquals(76, game.getRepetitionCount());
+
+        // past the clock's limit the scan falls back to the move records
+        for (int i = 75; i < 2100; i++) {
+            shuffleKnights(game);
+        }
+        Assertions.assertEquals(GameState.MAX_HALFMOVE, game.getHalfmoveClock());
+        Assertions.assertEquals(2101, game.getRepetitionCount());
+        Assertions.assertEquals(2101, new ChessGame(game).getRepetitionCount());
+        Assertions.assertEquals(2101, game.copyRecent().getRepetitionCount());
+        Assertions.assertEquals(game.getUndoDepth() - 2, game.copyRecent().getUndoDepth());
+    }
+}
@@ -0,0 +1,33 @@
+package chess;
+
+import static passoffTests.TestFactory.loadBoard;
+
+/**
+ * Games for the chess tests to start from
+ */
+final class TestGames {
+    private TestGames() {
+    }
+
+    /**
+     * @param boardText board in the layout read by {@link passoffTests.TestFactory#loadBoard}
+     * @param turn      team to move
+     */
+    static ChessGame gameOf(String boardText, ChessGame.TeamColor turn) {
+        ChessGame game = new ChessGame();
+        game.setBoard(loadBoard(boardText));
+        game.setTeamTurn(turn);
+        return game;
+    }
+
+    /**
+     * @return a game in the standard starting position, white to move
+     */
+    static ChessGame startingGame() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+}
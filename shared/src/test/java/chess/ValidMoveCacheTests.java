@@ -0,0 +1,36 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ValidMoveCacheTests {
+
+    @Test
+    @DisplayName("Cached Moves Match And Follow The Board")
+    public void cachedMoves() throws InvalidMoveException {
+        ValidMoveCache cache = new ValidMoveCache(1024, 4);
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setMoveCache(cache);
+        ChessGame plain = new ChessGame();
+        plain.setBoard(board);
+
+        ChessPosition knight = new ChessPosition(1, 7);
+        Assertions.assertEquals(plain.validMoves(knight), game.validMoves(knight));
+        Assertions.assertEquals(plain.validMoves(knight), game.validMoves(knight));
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(1, cache.getMisses());
+
+        // opening the king's diagonal changes the king's moves
+        ChessPosition king = new ChessPosition(1, 5);
+        Assertions.assertTrue(game.validMoves(king).isEmpty());
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        game.makeMove(new ChessMove(new ChessPosition(7, 5), new ChessPosition(5, 5), null));
+        Assertions.assertEquals(plain.validMoves(king), game.validMoves(king));
+        Assertions.assertEquals(1, game.validMoves(king).size());
+        Assertions.assertEquals(0.4, cache.getHitRate(), 1e-9);
+    }
+}
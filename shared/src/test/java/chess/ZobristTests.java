@@ -0,0 +1,46 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ZobristTests {
+
+    @Test
+    @DisplayName("Key Depends Only On Placement")
+    public void orderIndependent() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+
+        ChessBoard built = new ChessBoard();
+        for (int row = 8; row >= 1; row--) {
+            for (int col = 8; col >= 1; col--) {
+                ChessPosition pos = new ChessPosition(row, col);
+                built.addPiece(pos, new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+                built.addPiece(pos, board.getPiece(pos));
+            }
+        }
+
+        Assertions.assertEquals(board.getZobristKey(), built.getZobristKey());
+        Assertions.assertEquals(board, built);
+        Assertions.assertEquals(board.hashCode(), built.hashCode());
+    }
+
+    @Test
+    @DisplayName("Key Tracks Moves And Side To Move")
+    public void sideToMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        game.setBoard(board);
+        long start = game.getZobristKey();
+
+        game.makeMove(new ChessMove(new ChessPosition(1, 2), new ChessPosition(3, 3), null));
+        Assertions.assertNotEquals(start, game.getZobristKey());
+        game.makeMove(new ChessMove(new ChessPosition(8, 2), new ChessPosition(6, 3), null));
+        game.makeMove(new ChessMove(new ChessPosition(3, 3), new ChessPosition(1, 2), null));
+        Assertions.assertNotEquals(start, game.getZobristKey(), "Black to move should change the key");
+        game.makeMove(new ChessMove(new ChessPosition(6, 3), new ChessPosition(8, 2), null));
+        Assertions.assertEquals(start, game.getZobristKey());
+    }
+}